@@ -0,0 +1,65 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CascadeDeleteProperties;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Per-batch CPU cost of the cascade delete: extracting the deleted resource ids and merging the deleted song records into
+ * the deleted resource records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CascadeDeleteBenchmark {
+  @Param({"10", "1000", "100000"})
+  private int size;
+  private List<Map<String, Object>> resourceRecords;
+  private List<Map<String, Object>> songRecords;
+  private SongMetadataMerger merger;
+
+  @Setup
+  public void setUp() {
+    resourceRecords = new ArrayList<>(size);
+    songRecords = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Map<String, Object> resourceRecord = new HashMap<>();
+      resourceRecord.put("id", i + 1);
+      resourceRecord.put("name", "resource-" + i + ".mp3");
+      resourceRecords.add(resourceRecord);
+      Map<String, Object> songRecord = new HashMap<>();
+      songRecord.put("id", size - i);
+      songRecord.put("resourceId", size - i);
+      songRecord.put("name", "song-" + i);
+      songRecords.add(songRecord);
+    }
+    merger = new SongMetadataMerger(new CascadeDeleteProperties());
+  }
+
+  @TearDown
+  public void tearDown() {
+    merger.destroy();
+  }
+
+  @Benchmark
+  public List<String> extractResourceIds() {
+    return DeleteSongMetadataGatewayFilterFactory.extractResourceIds(resourceRecords);
+  }
+
+  @Benchmark
+  public List<Map<String, Object>> merge() {
+    return merger.mergeNow(songRecords, resourceRecords);
+  }
+}
@@ -0,0 +1,99 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import brave.Tracing;
+import com.epam.training.microservices.apigatewayservice.configuration.RequestMonitorProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.TracerConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Overhead the request monitor and the trace id web filters add to every request, measured against a chain that completes
+ * right away. The {@code baseline} benchmark is the cost of the exchange alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WebFilterOverheadBenchmark {
+  private static final WebFilterChain CHAIN = exchange -> Mono.empty();
+  private static final Route ROUTE = Route.async()
+      .id("get-song-by-id")
+      .uri("http://localhost")
+      .predicate(exchange -> true)
+      .build();
+  private Tracing tracing;
+  private Tracer tracer;
+  private Span span;
+  private WebFilter requestMonitorFilter;
+  private WebFilter traceIdInResponseFilter;
+
+  @Setup
+  public void setUp() {
+    tracing = Tracing.newBuilder().build();
+    tracer = new BraveTracer(tracing.tracer(), new BraveCurrentTraceContext(tracing.currentTraceContext()),
+        new BraveBaggageManager());
+    span = tracer.nextSpan().name("benchmark").start();
+    requestMonitorFilter = new RequestMonitorWebFilter(new SimpleMeterRegistry(), new RequestMonitorProperties());
+    traceIdInResponseFilter = new TracerConfiguration().traceIdInResponseFilter(tracer);
+  }
+
+  @TearDown
+  public void tearDown() {
+    span.end();
+    tracing.close();
+  }
+
+  @Benchmark
+  public ServerWebExchange baseline() {
+    ServerWebExchange exchange = exchange();
+    CHAIN.filter(exchange).block();
+    return exchange;
+  }
+
+  @Benchmark
+  public ServerWebExchange requestMonitor() {
+    ServerWebExchange exchange = exchange();
+    requestMonitorFilter.filter(exchange, CHAIN).block();
+    return exchange;
+  }
+
+  @Benchmark
+  public ServerWebExchange traceIdInResponse() {
+    ServerWebExchange exchange = exchange();
+    Tracer.SpanInScope scope = tracer.withSpan(span);
+    try {
+      traceIdInResponseFilter.filter(exchange, CHAIN).block();
+    } finally {
+      scope.close();
+    }
+    return exchange;
+  }
+
+  private static ServerWebExchange exchange() {
+    ServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+    exchange.getResponse().setStatusCode(HttpStatus.OK);
+    return exchange;
+  }
+}
@@ -0,0 +1,53 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Rate limiter key resolution of an anonymous client, which walks the whole extractor chain down to the client IP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KeyResolverBenchmark {
+  private static final InetSocketAddress CLIENT_ADDRESS = new InetSocketAddress("203.0.113.42", 52_814);
+  private ClientKeyResolver resolver;
+  private ServerWebExchange resolvedExchange;
+
+  @Setup
+  public void setUp() {
+    resolver = new ClientKeyResolver(ClientKeyExtractors.forProperties(new RateLimiterProperties()));
+    resolvedExchange = exchange();
+    resolver.resolve(resolvedExchange).block();
+  }
+
+  @Benchmark
+  public String hash() {
+    return ClientKeyResolver.hash(CLIENT_ADDRESS.getHostString());
+  }
+
+  @Benchmark
+  public String resolve() {
+    return resolver.resolve(exchange()).block();
+  }
+
+  @Benchmark
+  public String resolveCached() {
+    return resolver.resolve(resolvedExchange).block();
+  }
+
+  private static ServerWebExchange exchange() {
+    return MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1").remoteAddress(CLIENT_ADDRESS));
+  }
+}
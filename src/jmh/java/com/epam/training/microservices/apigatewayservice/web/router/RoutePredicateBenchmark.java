@@ -0,0 +1,114 @@
+package com.epam.training.microservices.apigatewayservice.web.router;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RouteProperties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cloud.gateway.handler.predicate.MethodRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.QueryRoutePredicateFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Matches a request against the nine gateway routes, once by evaluating method, path and query predicates in declaration
+ * order, the way RoutePredicateHandlerMapping does with predicate based routes, and once through the {@link RouteDispatchIndex}
+ * the {@link Router} builds. Every invocation uses a fresh exchange, as both cache their work on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutePredicateBenchmark {
+  @Param({"GET /resources/42", "POST /songs", "DELETE /songs/by-resource-id?id=1,2,3", "GET /storages/7", "GET /unknown"})
+  private String request;
+  private HttpMethod method;
+  private String uri;
+  private List<NamedPredicate> routes;
+  private RouteDispatchIndex dispatchIndex;
+
+  @Setup
+  public void setUp() {
+    String[] parts = request.split(" ");
+    method = HttpMethod.valueOf(parts[0]);
+    uri = parts[1];
+    routes = List.of(
+        route("get-resource-by-id", HttpMethod.GET, "/resources/{id}", null),
+        route("post-resources", HttpMethod.POST, "/resources", null),
+        route("delete-resources", HttpMethod.DELETE, "/resources", "id"),
+        route("get-song-by-id", HttpMethod.GET, "/songs/{id}", null),
+        route("post-song", HttpMethod.POST, "/songs", null),
+        route("delete-songs", HttpMethod.DELETE, "/songs", "id"),
+        route("delete-songs-by-resource-id", HttpMethod.DELETE, "/songs/by-resource-id", "id"),
+        route("get-storages-by-type", HttpMethod.GET, "/storages", "type"),
+        route("get-storage-by-id", HttpMethod.GET, "/storages/{id}", null));
+    dispatchIndex = new RouteDispatchIndex(List.of(
+        routeProperties("get-resource-by-id", HttpMethod.GET, "/resources/{id}", null),
+        routeProperties("post-resources", HttpMethod.POST, "/resources", null),
+        routeProperties("delete-resources", HttpMethod.DELETE, "/resources", "id"),
+        routeProperties("get-song-by-id", HttpMethod.GET, "/songs/{id}", null),
+        routeProperties("post-song", HttpMethod.POST, "/songs", null),
+        routeProperties("delete-songs", HttpMethod.DELETE, "/songs", "id"),
+        routeProperties("delete-songs-by-resource-id", HttpMethod.DELETE, "/songs/by-resource-id", "id"),
+        routeProperties("get-storages-by-type", HttpMethod.GET, "/storages", "type"),
+        routeProperties("get-storage-by-id", HttpMethod.GET, "/storages/{id}", null)));
+  }
+
+  @Benchmark
+  public ServerWebExchange exchangeOnly() {
+    return exchange();
+  }
+
+  @Benchmark
+  public String matchRoute() {
+    ServerWebExchange exchange = exchange();
+    for (NamedPredicate route : routes) {
+      if (route.predicate().test(exchange)) {
+        return route.id();
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public String matchDispatchIndex() {
+    return dispatchIndex.lookup(exchange());
+  }
+
+  private ServerWebExchange exchange() {
+    return MockServerWebExchange.from(MockServerHttpRequest.method(method, uri));
+  }
+
+  private static NamedPredicate route(String id, HttpMethod method, String path, String queryParam) {
+    MethodRoutePredicateFactory.Config methodConfig = new MethodRoutePredicateFactory.Config();
+    methodConfig.setMethods(method);
+    Predicate<ServerWebExchange> predicate = new MethodRoutePredicateFactory().apply(methodConfig)
+        .and(new PathRoutePredicateFactory().apply(new PathRoutePredicateFactory.Config().setPatterns(List.of(path))));
+    if (queryParam != null) {
+      predicate = predicate.and(new QueryRoutePredicateFactory().apply(new QueryRoutePredicateFactory.Config().setParam(queryParam)));
+    }
+    return new NamedPredicate(id, predicate);
+  }
+
+  private static RouteProperties routeProperties(String id, HttpMethod method, String path, String queryParam) {
+    RouteProperties routeProperties = new RouteProperties();
+    routeProperties.setId(id);
+    routeProperties.setMethod(method);
+    routeProperties.setPath(path);
+    routeProperties.setQuery(queryParam == null ? new ArrayList<>() : List.of(queryParam));
+    return routeProperties;
+  }
+
+  private record NamedPredicate(String id, Predicate<ServerWebExchange> predicate) {
+  }
+}
@@ -2,14 +2,20 @@ package com.epam.training.microservices.apigatewayservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import reactor.core.publisher.Hooks;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 public class ApiGatewayServiceApplication {
+    // startup steps kept for the startup actuator endpoint, enough for every bean of the gateway and its child contexts
+    private static final int STARTUP_STEPS_CAPACITY = 8192;
+
     public static void main(String[] args) {
         Hooks.enableAutomaticContextPropagation();
-        SpringApplication.run(ApiGatewayServiceApplication.class, args);
+        SpringApplication application = new SpringApplication(ApiGatewayServiceApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+        application.run(args);
     }
 }
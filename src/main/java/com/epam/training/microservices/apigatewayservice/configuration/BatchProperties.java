@@ -0,0 +1,42 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+
+public class BatchProperties {
+  private int maxIds = 500;
+  private int idsPerToken = 25;
+  private int maxConcurrency = 16;
+  private Duration itemTimeout = Duration.ofSeconds(10);
+
+  public int getMaxIds() {
+    return maxIds;
+  }
+
+  public int getIdsPerToken() {
+    return idsPerToken;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public Duration getItemTimeout() {
+    return itemTimeout;
+  }
+
+  public void setMaxIds(int maxIds) {
+    this.maxIds = maxIds;
+  }
+
+  public void setIdsPerToken(int idsPerToken) {
+    this.idsPerToken = idsPerToken;
+  }
+
+  public void setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public void setItemTimeout(Duration itemTimeout) {
+    this.itemTimeout = itemTimeout;
+  }
+}
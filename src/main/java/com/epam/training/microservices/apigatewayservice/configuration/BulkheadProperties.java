@@ -0,0 +1,25 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * Cap on the requests the gateway has in flight to a downstream service at the same time, requests above it are rejected.
+ */
+public class BulkheadProperties {
+  private boolean enabled = true;
+  private int maxConcurrentCalls = 100;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getMaxConcurrentCalls() {
+    return maxConcurrentCalls;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+}
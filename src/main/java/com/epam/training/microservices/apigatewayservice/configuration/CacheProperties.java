@@ -0,0 +1,43 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.util.unit.DataSize;
+
+public class CacheProperties {
+  private boolean enabled;
+  private Duration ttl = Duration.ofMinutes(1);
+  private DataSize maxSize = DataSize.ofMegabytes(16);
+  private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public DataSize getMaxSize() {
+    return maxSize;
+  }
+
+  public DataSize getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setTtl(Duration ttl) {
+    this.ttl = ttl;
+  }
+
+  public void setMaxSize(DataSize maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public void setMaxEntrySize(DataSize maxEntrySize) {
+    this.maxEntrySize = maxEntrySize;
+  }
+}
@@ -0,0 +1,53 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = CascadeDeleteProperties.PREFIX)
+public class CascadeDeleteProperties {
+  public static final String PREFIX = "cascade-delete";
+  private boolean streaming = true;
+  private int chunkSize = 500;
+  private int maxConcurrency = 4;
+  private int mergeOffloadThreshold = 2_048;
+  private int mergeThreads = 2;
+
+  public boolean isStreaming() {
+    return streaming;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  public int getMergeOffloadThreshold() {
+    return mergeOffloadThreshold;
+  }
+
+  public int getMergeThreads() {
+    return mergeThreads;
+  }
+
+  public void setStreaming(boolean streaming) {
+    this.streaming = streaming;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public void setMaxConcurrency(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  public void setMergeOffloadThreshold(int mergeOffloadThreshold) {
+    this.mergeOffloadThreshold = mergeOffloadThreshold;
+  }
+
+  public void setMergeThreads(int mergeThreads) {
+    this.mergeThreads = mergeThreads;
+  }
+}
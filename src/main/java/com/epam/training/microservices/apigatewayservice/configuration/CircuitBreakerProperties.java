@@ -0,0 +1,81 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker in front of a downstream service. Upstream 5xx responses, connection errors and timeouts count as failures.
+ */
+public class CircuitBreakerProperties {
+  private boolean enabled = true;
+  private float failureRateThreshold = 50;
+  private float slowCallRateThreshold = 100;
+  private Duration slowCallDurationThreshold = Duration.ofSeconds(5);
+  private int slidingWindowSize = 50;
+  private int minimumNumberOfCalls = 20;
+  private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+  private int permittedCallsInHalfOpenState = 5;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public float getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public float getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public Duration getSlowCallDurationThreshold() {
+    return slowCallDurationThreshold;
+  }
+
+  public int getSlidingWindowSize() {
+    return slidingWindowSize;
+  }
+
+  public int getMinimumNumberOfCalls() {
+    return minimumNumberOfCalls;
+  }
+
+  public Duration getWaitDurationInOpenState() {
+    return waitDurationInOpenState;
+  }
+
+  public int getPermittedCallsInHalfOpenState() {
+    return permittedCallsInHalfOpenState;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setFailureRateThreshold(float failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  public void setSlowCallDurationThreshold(Duration slowCallDurationThreshold) {
+    this.slowCallDurationThreshold = slowCallDurationThreshold;
+  }
+
+  public void setSlidingWindowSize(int slidingWindowSize) {
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+  }
+
+  public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+    this.waitDurationInOpenState = waitDurationInOpenState;
+  }
+
+  public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+    this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+  }
+}
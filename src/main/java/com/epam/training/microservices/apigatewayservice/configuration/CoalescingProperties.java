@@ -0,0 +1,18 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = CoalescingProperties.PREFIX)
+public class CoalescingProperties {
+  public static final String PREFIX = "request-coalescing";
+  private DataSize maxBodySize = DataSize.ofMegabytes(1);
+
+  public DataSize getMaxBodySize() {
+    return maxBodySize;
+  }
+
+  public void setMaxBodySize(DataSize maxBodySize) {
+    this.maxBodySize = maxBodySize;
+  }
+}
@@ -0,0 +1,48 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.util.List;
+import java.util.zip.Deflater;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = CompressionProperties.PREFIX)
+public class CompressionProperties {
+  public static final String PREFIX = "compression";
+  private boolean enabled = true;
+  private DataSize minResponseSize = DataSize.ofKilobytes(1);
+  private List<String> mimeTypes = List.of("application/json", "application/*+json", "text/plain", "text/html",
+      "application/xml", "text/xml");
+  private int level = Deflater.DEFAULT_COMPRESSION;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public DataSize getMinResponseSize() {
+    return minResponseSize;
+  }
+
+  public List<String> getMimeTypes() {
+    return mimeTypes;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setMinResponseSize(DataSize minResponseSize) {
+    this.minResponseSize = minResponseSize;
+  }
+
+  public void setMimeTypes(List<String> mimeTypes) {
+    this.mimeTypes = mimeTypes;
+  }
+
+  public void setLevel(int level) {
+    this.level = level;
+  }
+}
@@ -0,0 +1,70 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * Adaptive concurrency limit of a service, used by the routes with the adaptive rate limit mode.
+ */
+public class ConcurrencyLimitProperties {
+  private int initialLimit = 20;
+  private int minLimit = 5;
+  private int maxLimit = 200;
+  private int queueSize = 4;
+  private double rttTolerance = 1.5;
+  private double smoothing = 0.2;
+  private int longWindow = 600;
+
+  public int getInitialLimit() {
+    return initialLimit;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public double getRttTolerance() {
+    return rttTolerance;
+  }
+
+  public double getSmoothing() {
+    return smoothing;
+  }
+
+  public int getLongWindow() {
+    return longWindow;
+  }
+
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  public void setMinLimit(int minLimit) {
+    this.minLimit = minLimit;
+  }
+
+  public void setMaxLimit(int maxLimit) {
+    this.maxLimit = maxLimit;
+  }
+
+  public void setQueueSize(int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public void setRttTolerance(double rttTolerance) {
+    this.rttTolerance = rttTolerance;
+  }
+
+  public void setSmoothing(double smoothing) {
+    this.smoothing = smoothing;
+  }
+
+  public void setLongWindow(int longWindow) {
+    this.longWindow = longWindow;
+  }
+}
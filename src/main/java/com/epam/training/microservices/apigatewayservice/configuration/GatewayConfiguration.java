@@ -1,5 +1,7 @@
 package com.epam.training.microservices.apigatewayservice.configuration;
 
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.ClientKeyExtractors;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.ClientKeyResolver;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
@@ -7,7 +9,6 @@ import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
 
 @Configuration
 @EnableConfigurationProperties(value = {ResourceServiceProperties.class, SongServiceProperties.class, RateLimiterProperties.class})
@@ -17,8 +18,8 @@ public class GatewayConfiguration {
   private String baseUrl;
 
   @Bean
-  KeyResolver userKeyResolver() {
-    return exchange -> Mono.just("1");
+  KeyResolver userKeyResolver(RateLimiterProperties rateLimiterProperties) {
+    return new ClientKeyResolver(ClientKeyExtractors.forProperties(rateLimiterProperties));
   }
 
   @Bean
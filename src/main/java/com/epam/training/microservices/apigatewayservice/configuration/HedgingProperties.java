@@ -0,0 +1,63 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = HedgingProperties.PREFIX)
+public class HedgingProperties {
+  public static final String PREFIX = "hedging";
+  private boolean enabled = true;
+  private double percentile = 0.95;
+  private Duration minDelay = Duration.ofMillis(20);
+  private Duration maxDelay = Duration.ofSeconds(1);
+  private Duration latencyWindow = Duration.ofMinutes(1);
+  private long minSamples = 100;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public double getPercentile() {
+    return percentile;
+  }
+
+  public Duration getMinDelay() {
+    return minDelay;
+  }
+
+  public Duration getMaxDelay() {
+    return maxDelay;
+  }
+
+  public Duration getLatencyWindow() {
+    return latencyWindow;
+  }
+
+  public long getMinSamples() {
+    return minSamples;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setPercentile(double percentile) {
+    this.percentile = percentile;
+  }
+
+  public void setMinDelay(Duration minDelay) {
+    this.minDelay = minDelay;
+  }
+
+  public void setMaxDelay(Duration maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public void setLatencyWindow(Duration latencyWindow) {
+    this.latencyWindow = latencyWindow;
+  }
+
+  public void setMinSamples(long minSamples) {
+    this.minSamples = minSamples;
+  }
+}
@@ -0,0 +1,37 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * HTTP/2 towards a downstream service. Cleartext instances are spoken to with h2c, upgrading from HTTP/1.1 unless prior
+ * knowledge is set, TLS instances negotiate h2 with ALPN. Instances that turn the upgrade or ALPN down stay on HTTP/1.1.
+ * An HTTP/2 connection carries up to {@code max-concurrent-streams} requests at a time, the connections of an instance are
+ * capped by the {@code max-connections} of the pool, HTTP/2 or not.
+ */
+public class Http2Properties {
+  private boolean enabled;
+  private boolean priorKnowledge;
+  private long maxConcurrentStreams = 100;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isPriorKnowledge() {
+    return priorKnowledge;
+  }
+
+  public long getMaxConcurrentStreams() {
+    return maxConcurrentStreams;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setPriorKnowledge(boolean priorKnowledge) {
+    this.priorKnowledge = priorKnowledge;
+  }
+
+  public void setMaxConcurrentStreams(long maxConcurrentStreams) {
+    this.maxConcurrentStreams = maxConcurrentStreams;
+  }
+}
@@ -0,0 +1,17 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.RegistrySnapshot;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Instance selection of every load-balanced service, applied in the load balancer context of each service. Covers the
+ * {@code lb://} routes as well as the load-balanced {@code webClient}. Until the registry has returned instances of a
+ * service the ones of the {@link RegistrySnapshot} are used.
+ */
+@Configuration
+@EnableConfigurationProperties({LoadBalancingProperties.class, RegistrySnapshotProperties.class})
+@LoadBalancerClients(defaultConfiguration = ServiceInstanceSelection.class)
+public class LoadBalancerConfiguration {
+}
@@ -0,0 +1,54 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = LoadBalancingProperties.PREFIX)
+public class LoadBalancingProperties {
+  public static final String PREFIX = "load-balancing";
+  private Duration decayTime = Duration.ofSeconds(10);
+  private int failureThreshold = 5;
+  private Duration ejectionTime = Duration.ofSeconds(30);
+  private int maxEjectionPercent = 50;
+  private Duration slowStart = Duration.ofSeconds(30);
+
+  public Duration getDecayTime() {
+    return decayTime;
+  }
+
+  public int getFailureThreshold() {
+    return failureThreshold;
+  }
+
+  public Duration getEjectionTime() {
+    return ejectionTime;
+  }
+
+  public int getMaxEjectionPercent() {
+    return maxEjectionPercent;
+  }
+
+  public Duration getSlowStart() {
+    return slowStart;
+  }
+
+  public void setDecayTime(Duration decayTime) {
+    this.decayTime = decayTime;
+  }
+
+  public void setFailureThreshold(int failureThreshold) {
+    this.failureThreshold = failureThreshold;
+  }
+
+  public void setEjectionTime(Duration ejectionTime) {
+    this.ejectionTime = ejectionTime;
+  }
+
+  public void setMaxEjectionPercent(int maxEjectionPercent) {
+    this.maxEjectionPercent = maxEjectionPercent;
+  }
+
+  public void setSlowStart(Duration slowStart) {
+    this.slowStart = slowStart;
+  }
+}
@@ -0,0 +1,21 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import com.epam.training.microservices.apigatewayservice.web.filter.ServiceNettyRoutingFilter;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Writes the upstream responses of the {@link ServiceNettyRoutingFilter}. The gateway only registers its
+ * {@link NettyWriteResponseFilter} together with the default routing filter, which is disabled in favour of the pool per
+ * service.
+ */
+@Configuration
+public class NettyRoutingConfiguration {
+
+  @Bean
+  public NettyWriteResponseFilter nettyWriteResponseFilter(GatewayProperties properties) {
+    return new NettyWriteResponseFilter(properties.getStreamingMediaTypes());
+  }
+}
@@ -0,0 +1,63 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+
+/**
+ * Connection pool the gateway keeps to a downstream service.
+ */
+public class PoolProperties {
+  private int maxConnections = 200;
+  private int pendingAcquireMaxCount = 400;
+  private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+  private Duration maxIdleTime = Duration.ofSeconds(30);
+  private Duration maxLifeTime = Duration.ofMinutes(5);
+  private Duration evictionInterval = Duration.ofSeconds(30);
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public int getPendingAcquireMaxCount() {
+    return pendingAcquireMaxCount;
+  }
+
+  public Duration getPendingAcquireTimeout() {
+    return pendingAcquireTimeout;
+  }
+
+  public Duration getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  public Duration getMaxLifeTime() {
+    return maxLifeTime;
+  }
+
+  public Duration getEvictionInterval() {
+    return evictionInterval;
+  }
+
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+    this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+  }
+
+  public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+    this.pendingAcquireTimeout = pendingAcquireTimeout;
+  }
+
+  public void setMaxIdleTime(Duration maxIdleTime) {
+    this.maxIdleTime = maxIdleTime;
+  }
+
+  public void setMaxLifeTime(Duration maxLifeTime) {
+    this.maxLifeTime = maxLifeTime;
+  }
+
+  public void setEvictionInterval(Duration evictionInterval) {
+    this.evictionInterval = evictionInterval;
+  }
+}
@@ -0,0 +1,15 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * How a route protects its service from overload.
+ */
+public enum RateLimitMode {
+  /**
+   * Fixed per client token bucket of the {@link RateLimiterProperties}.
+   */
+  TOKEN_BUCKET,
+  /**
+   * Concurrency limit of the service, adapted to the latency of its responses.
+   */
+  ADAPTIVE
+}
@@ -0,0 +1,44 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * Rate limit of a single route, unset values fall back to the {@link RateLimiterProperties} defaults. In the adaptive mode the
+ * route shares the concurrency limit of its service instead.
+ */
+public class RateLimitProperties {
+  private RateLimitMode mode = RateLimitMode.TOKEN_BUCKET;
+  private Integer replenishRate;
+  private Integer burstCapacity;
+  private Integer requestedTokens;
+
+  public RateLimitMode getMode() {
+    return mode;
+  }
+
+  public Integer getReplenishRate() {
+    return replenishRate;
+  }
+
+  public Integer getBurstCapacity() {
+    return burstCapacity;
+  }
+
+  public Integer getRequestedTokens() {
+    return requestedTokens;
+  }
+
+  public void setMode(RateLimitMode mode) {
+    this.mode = mode;
+  }
+
+  public void setReplenishRate(Integer replenishRate) {
+    this.replenishRate = replenishRate;
+  }
+
+  public void setBurstCapacity(Integer burstCapacity) {
+    this.burstCapacity = burstCapacity;
+  }
+
+  public void setRequestedTokens(Integer requestedTokens) {
+    this.requestedTokens = requestedTokens;
+  }
+}
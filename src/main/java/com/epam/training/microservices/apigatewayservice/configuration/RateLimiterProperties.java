@@ -1,5 +1,6 @@
 package com.epam.training.microservices.apigatewayservice.configuration;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = RateLimiterProperties.PREFIX)
@@ -8,6 +9,12 @@ public class RateLimiterProperties {
   private int replenishRate;
   private int burstCapacity;
   private int requestedTokens;
+  private Duration syncInterval = Duration.ofMillis(200);
+  private Duration keyIdleTimeout = Duration.ofMinutes(5);
+  private int maxKeys = 100_000;
+  private KeyStrategy keyStrategy = KeyStrategy.CLIENT_IP;
+  private String apiKeyHeader = "X-API-Key";
+  private int trustedProxies;
 
   public int getReplenishRate() {
     return replenishRate;
@@ -21,6 +28,30 @@ public class RateLimiterProperties {
     return requestedTokens;
   }
 
+  public Duration getSyncInterval() {
+    return syncInterval;
+  }
+
+  public Duration getKeyIdleTimeout() {
+    return keyIdleTimeout;
+  }
+
+  public int getMaxKeys() {
+    return maxKeys;
+  }
+
+  public KeyStrategy getKeyStrategy() {
+    return keyStrategy;
+  }
+
+  public String getApiKeyHeader() {
+    return apiKeyHeader;
+  }
+
+  public int getTrustedProxies() {
+    return trustedProxies;
+  }
+
   public void setReplenishRate(int replenishRate) {
     this.replenishRate = replenishRate;
   }
@@ -32,4 +63,35 @@ public class RateLimiterProperties {
   public void setRequestedTokens(int requestedTokens) {
     this.requestedTokens = requestedTokens;
   }
+
+  public void setSyncInterval(Duration syncInterval) {
+    this.syncInterval = syncInterval;
+  }
+
+  public void setKeyIdleTimeout(Duration keyIdleTimeout) {
+    this.keyIdleTimeout = keyIdleTimeout;
+  }
+
+  public void setMaxKeys(int maxKeys) {
+    this.maxKeys = maxKeys;
+  }
+
+  public void setKeyStrategy(KeyStrategy keyStrategy) {
+    this.keyStrategy = keyStrategy;
+  }
+
+  public void setApiKeyHeader(String apiKeyHeader) {
+    this.apiKeyHeader = apiKeyHeader;
+  }
+
+  public void setTrustedProxies(int trustedProxies) {
+    this.trustedProxies = trustedProxies;
+  }
+
+  public enum KeyStrategy {
+    PRINCIPAL,
+    API_KEY,
+    CLIENT_IP,
+    ROUTE_CLIENT
+  }
 }
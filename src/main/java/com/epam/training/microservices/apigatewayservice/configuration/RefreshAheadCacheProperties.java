@@ -0,0 +1,61 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.util.unit.DataSize;
+
+public class RefreshAheadCacheProperties {
+  private boolean enabled;
+  private Duration refreshAfter = Duration.ofMinutes(1);
+  private Duration expireAfter = Duration.ofHours(1);
+  private Duration refreshTimeout = Duration.ofSeconds(5);
+  private int maxEntries = 100;
+  private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public Duration getRefreshAfter() {
+    return refreshAfter;
+  }
+
+  public Duration getExpireAfter() {
+    return expireAfter;
+  }
+
+  public Duration getRefreshTimeout() {
+    return refreshTimeout;
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public DataSize getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setRefreshAfter(Duration refreshAfter) {
+    this.refreshAfter = refreshAfter;
+  }
+
+  public void setExpireAfter(Duration expireAfter) {
+    this.expireAfter = expireAfter;
+  }
+
+  public void setRefreshTimeout(Duration refreshTimeout) {
+    this.refreshTimeout = refreshTimeout;
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public void setMaxEntrySize(DataSize maxEntrySize) {
+    this.maxEntrySize = maxEntrySize;
+  }
+}
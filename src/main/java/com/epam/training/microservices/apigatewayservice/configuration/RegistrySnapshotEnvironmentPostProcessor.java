@@ -0,0 +1,62 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.cloud.bootstrap.BootstrapApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.env.PropertySource;
+
+/**
+ * Adds the route configuration last received from the configuration server, saved by the registry snapshot, in place of the
+ * configuration server: above the local configuration files and below the configuration server sources, which take over as
+ * soon as the server answers. Lets the gateway start with its last known routes while the server is unavailable, provided
+ * {@code spring.cloud.config.fail-fast} is off.
+ */
+public class RegistrySnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor {
+  public static final String PROPERTY_SOURCE_NAME = "registrySnapshotConfig";
+  private static final String LOCAL_CONFIG_PREFIX = "Config resource";
+  private final Log log;
+
+  public RegistrySnapshotEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+    this.log = logFactory.getLog(RegistrySnapshotEnvironmentPostProcessor.class);
+  }
+
+  @Override
+  public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+    MutablePropertySources sources = environment.getPropertySources();
+    // the bootstrap context only locates the configuration server, it has no routes
+    if (sources.contains(BootstrapApplicationListener.BOOTSTRAP_PROPERTY_SOURCE_NAME)
+        || !environment.getProperty(RegistrySnapshotProperties.PREFIX + ".enabled", Boolean.class, true)) {
+      return;
+    }
+    Path file = Path.of(environment.getProperty(RegistrySnapshotProperties.PREFIX + ".directory", "snapshot"))
+        .resolve(RegistrySnapshotProperties.CONFIG_FILE);
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    Properties config = new Properties();
+    try (InputStream content = Files.newInputStream(file)) {
+      config.load(content);
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Failed to load the route configuration snapshot " + file, e);
+      return;
+    }
+    PropertiesPropertySource snapshot = new PropertiesPropertySource(PROPERTY_SOURCE_NAME, config);
+    for (PropertySource<?> source : sources) {
+      if (source.getName().startsWith(LOCAL_CONFIG_PREFIX)) {
+        sources.addBefore(source.getName(), snapshot);
+        return;
+      }
+    }
+    sources.addLast(snapshot);
+  }
+}
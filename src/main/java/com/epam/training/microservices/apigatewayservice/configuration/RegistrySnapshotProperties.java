@@ -0,0 +1,47 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = RegistrySnapshotProperties.PREFIX)
+public class RegistrySnapshotProperties {
+  public static final String PREFIX = "registry-snapshot";
+  public static final String INSTANCES_FILE = "instances.json";
+  public static final String CONFIG_FILE = "config.properties";
+  private boolean enabled = true;
+  private String directory = "snapshot";
+  private Duration saveInterval = Duration.ofSeconds(30);
+  private Duration maxAge = Duration.ofDays(7);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getDirectory() {
+    return directory;
+  }
+
+  public Duration getSaveInterval() {
+    return saveInterval;
+  }
+
+  public Duration getMaxAge() {
+    return maxAge;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setDirectory(String directory) {
+    this.directory = directory;
+  }
+
+  public void setSaveInterval(Duration saveInterval) {
+    this.saveInterval = saveInterval;
+  }
+
+  public void setMaxAge(Duration maxAge) {
+    this.maxAge = maxAge;
+  }
+}
@@ -0,0 +1,26 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = RequestBudgetProperties.PREFIX)
+public class RequestBudgetProperties {
+  public static final String PREFIX = "request-budget";
+  private double ratio = 0.05;
+  private int maxBalance = 50;
+
+  public double getRatio() {
+    return ratio;
+  }
+
+  public int getMaxBalance() {
+    return maxBalance;
+  }
+
+  public void setRatio(double ratio) {
+    this.ratio = ratio;
+  }
+
+  public void setMaxBalance(int maxBalance) {
+    this.maxBalance = maxBalance;
+  }
+}
@@ -0,0 +1,55 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = RequestMonitorProperties.PREFIX)
+public class RequestMonitorProperties {
+  public static final String PREFIX = "request-monitor";
+  private boolean logEnabled = false;
+  private double logSampleRate = 0.01;
+  private List<Double> percentiles = List.of(0.5, 0.95, 0.99);
+  private Duration minimumExpectedLatency = Duration.ofMillis(1);
+  private Duration maximumExpectedLatency = Duration.ofSeconds(30);
+
+  public boolean isLogEnabled() {
+    return logEnabled;
+  }
+
+  public double getLogSampleRate() {
+    return logSampleRate;
+  }
+
+  public List<Double> getPercentiles() {
+    return percentiles;
+  }
+
+  public Duration getMinimumExpectedLatency() {
+    return minimumExpectedLatency;
+  }
+
+  public Duration getMaximumExpectedLatency() {
+    return maximumExpectedLatency;
+  }
+
+  public void setLogEnabled(boolean logEnabled) {
+    this.logEnabled = logEnabled;
+  }
+
+  public void setLogSampleRate(double logSampleRate) {
+    this.logSampleRate = logSampleRate;
+  }
+
+  public void setPercentiles(List<Double> percentiles) {
+    this.percentiles = percentiles;
+  }
+
+  public void setMinimumExpectedLatency(Duration minimumExpectedLatency) {
+    this.minimumExpectedLatency = minimumExpectedLatency;
+  }
+
+  public void setMaximumExpectedLatency(Duration maximumExpectedLatency) {
+    this.maximumExpectedLatency = maximumExpectedLatency;
+  }
+}
@@ -3,11 +3,17 @@ package com.epam.training.microservices.apigatewayservice.configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = ResourceServiceProperties.PREFIX)
-public class ResourceServiceProperties {
+public class ResourceServiceProperties implements ServiceProperties {
   public static final String PREFIX = "resource.service";
   private String name;
   private String path;
   private String uri;
+  private UploadProperties upload = new UploadProperties();
+  private PoolProperties pool = new PoolProperties();
+  private Http2Properties http2 = new Http2Properties();
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+  private BulkheadProperties bulkhead = new BulkheadProperties();
+  private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
 
   public String getName() {
     return name;
@@ -21,6 +27,26 @@ public class ResourceServiceProperties {
     return uri;
   }
 
+  public UploadProperties getUpload() {
+    return upload;
+  }
+
+  public PoolProperties getPool() {
+    return pool;
+  }
+
+  public Http2Properties getHttp2() {
+    return http2;
+  }
+
+  public CircuitBreakerProperties getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public BulkheadProperties getBulkhead() {
+    return bulkhead;
+  }
+
   public void setName(String name) {
     this.name = name;
   }
@@ -32,4 +58,32 @@ public class ResourceServiceProperties {
   public void setUri(String uri) {
     this.uri = uri;
   }
+
+  public void setUpload(UploadProperties upload) {
+    this.upload = upload;
+  }
+
+  public void setPool(PoolProperties pool) {
+    this.pool = pool;
+  }
+
+  public void setHttp2(Http2Properties http2) {
+    this.http2 = http2;
+  }
+
+  public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public void setBulkhead(BulkheadProperties bulkhead) {
+    this.bulkhead = bulkhead;
+  }
+
+  public ConcurrencyLimitProperties getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  public void setConcurrencyLimit(ConcurrencyLimitProperties concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+  }
 }
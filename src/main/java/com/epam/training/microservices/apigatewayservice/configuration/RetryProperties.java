@@ -0,0 +1,54 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = RetryProperties.PREFIX)
+public class RetryProperties {
+  public static final String PREFIX = "retry";
+  private boolean enabled = true;
+  private int maxRetries = 2;
+  private Duration firstBackoff = Duration.ofMillis(50);
+  private Duration maxBackoff = Duration.ofMillis(500);
+  private double jitter = 0.5;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public Duration getFirstBackoff() {
+    return firstBackoff;
+  }
+
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public double getJitter() {
+    return jitter;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  public void setFirstBackoff(Duration firstBackoff) {
+    this.firstBackoff = firstBackoff;
+  }
+
+  public void setMaxBackoff(Duration maxBackoff) {
+    this.maxBackoff = maxBackoff;
+  }
+
+  public void setJitter(double jitter) {
+    this.jitter = jitter;
+  }
+}
@@ -0,0 +1,117 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpMethod;
+
+public class RouteProperties {
+  private String id;
+  private HttpMethod method;
+  private String path;
+  private List<String> query = new ArrayList<>();
+  private String service;
+  private String targetPath = "";
+  private RateLimitProperties rateLimit = new RateLimitProperties();
+  private Duration timeout;
+  private boolean cache;
+  private boolean coalesce;
+  private boolean hedge;
+  private boolean retry;
+
+  public String getId() {
+    return id;
+  }
+
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public List<String> getQuery() {
+    return query;
+  }
+
+  public String getService() {
+    return service;
+  }
+
+  public String getTargetPath() {
+    return targetPath;
+  }
+
+  public RateLimitProperties getRateLimit() {
+    return rateLimit;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public boolean isCache() {
+    return cache;
+  }
+
+  public boolean isCoalesce() {
+    return coalesce;
+  }
+
+  public boolean isHedge() {
+    return hedge;
+  }
+
+  public boolean isRetry() {
+    return retry;
+  }
+
+  public void setId(String id) {
+    this.id = id;
+  }
+
+  public void setMethod(HttpMethod method) {
+    this.method = method;
+  }
+
+  public void setPath(String path) {
+    this.path = path;
+  }
+
+  public void setQuery(List<String> query) {
+    this.query = query;
+  }
+
+  public void setService(String service) {
+    this.service = service;
+  }
+
+  public void setTargetPath(String targetPath) {
+    this.targetPath = targetPath;
+  }
+
+  public void setRateLimit(RateLimitProperties rateLimit) {
+    this.rateLimit = rateLimit;
+  }
+
+  public void setTimeout(Duration timeout) {
+    this.timeout = timeout;
+  }
+
+  public void setCache(boolean cache) {
+    this.cache = cache;
+  }
+
+  public void setCoalesce(boolean coalesce) {
+    this.coalesce = coalesce;
+  }
+
+  public void setHedge(boolean hedge) {
+    this.hedge = hedge;
+  }
+
+  public void setRetry(boolean retry) {
+    this.retry = retry;
+  }
+}
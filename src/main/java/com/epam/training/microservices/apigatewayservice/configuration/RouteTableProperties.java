@@ -0,0 +1,19 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = RouteTableProperties.PREFIX)
+public class RouteTableProperties {
+  public static final String PREFIX = "route-table";
+  private List<RouteProperties> routes = new ArrayList<>();
+
+  public List<RouteProperties> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(List<RouteProperties> routes) {
+    this.routes = routes;
+  }
+}
@@ -0,0 +1,43 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.ExcludedInstanceServiceInstanceListSupplier;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.PeakEwmaLoadBalancer;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.RegistrySnapshot;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.SnapshotServiceInstanceListSupplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Beans of the load balancer context of every service, see {@link LoadBalancerConfiguration}. Neither a {@code @Configuration}
+ * nor nested in one, so that neither component scanning nor the configuration class parser takes its beans into the
+ * application context, where no load balancer client name is set.
+ */
+public class ServiceInstanceSelection {
+
+  @Bean
+  @ConditionalOnBean(ReactiveDiscoveryClient.class)
+  public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context,
+      RegistrySnapshot registrySnapshot) {
+    return new ExcludedInstanceServiceInstanceListSupplier(new SnapshotServiceInstanceListSupplier(
+        ServiceInstanceListSupplier.builder()
+            .withDiscoveryClient()
+            .withCaching()
+            .build(context),
+        registrySnapshot));
+  }
+
+  // declared with its own type, the load balancer filters look it up as a LoadBalancerLifecycle as well
+  @Bean
+  public PeakEwmaLoadBalancer peakEwmaLoadBalancer(Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+      LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+    String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+    return new PeakEwmaLoadBalancer(loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+        serviceId, properties, meterRegistry);
+  }
+}
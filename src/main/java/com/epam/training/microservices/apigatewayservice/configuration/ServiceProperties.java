@@ -0,0 +1,22 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+/**
+ * Location of a downstream service the route table forwards to.
+ */
+public interface ServiceProperties {
+  String getName();
+
+  String getPath();
+
+  String getUri();
+
+  PoolProperties getPool();
+
+  Http2Properties getHttp2();
+
+  CircuitBreakerProperties getCircuitBreaker();
+
+  BulkheadProperties getBulkhead();
+
+  ConcurrencyLimitProperties getConcurrencyLimit();
+}
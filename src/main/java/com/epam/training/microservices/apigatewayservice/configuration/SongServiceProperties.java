@@ -3,12 +3,19 @@ package com.epam.training.microservices.apigatewayservice.configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = SongServiceProperties.PREFIX)
-public class SongServiceProperties {
+public class SongServiceProperties implements ServiceProperties {
   public static final String PREFIX = "song.service";
   private String name;
   private String path;
   private String uri;
   private String byResourceId;
+  private CacheProperties cache = new CacheProperties();
+  private PoolProperties pool = new PoolProperties();
+  private Http2Properties http2 = new Http2Properties();
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+  private BulkheadProperties bulkhead = new BulkheadProperties();
+  private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
+  private BatchProperties batch = new BatchProperties();
 
   public String getName() {
     return name;
@@ -26,6 +33,26 @@ public class SongServiceProperties {
     return byResourceId;
   }
 
+  public CacheProperties getCache() {
+    return cache;
+  }
+
+  public PoolProperties getPool() {
+    return pool;
+  }
+
+  public Http2Properties getHttp2() {
+    return http2;
+  }
+
+  public CircuitBreakerProperties getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public BulkheadProperties getBulkhead() {
+    return bulkhead;
+  }
+
   public void setName(String name) {
     this.name = name;
   }
@@ -41,4 +68,40 @@ public class SongServiceProperties {
   public void setByResourceId(String byResourceId) {
     this.byResourceId = byResourceId;
   }
+
+  public void setCache(CacheProperties cache) {
+    this.cache = cache;
+  }
+
+  public void setPool(PoolProperties pool) {
+    this.pool = pool;
+  }
+
+  public void setHttp2(Http2Properties http2) {
+    this.http2 = http2;
+  }
+
+  public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public void setBulkhead(BulkheadProperties bulkhead) {
+    this.bulkhead = bulkhead;
+  }
+
+  public ConcurrencyLimitProperties getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  public void setConcurrencyLimit(ConcurrencyLimitProperties concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+  }
+
+  public BatchProperties getBatch() {
+    return batch;
+  }
+
+  public void setBatch(BatchProperties batch) {
+    this.batch = batch;
+  }
 }
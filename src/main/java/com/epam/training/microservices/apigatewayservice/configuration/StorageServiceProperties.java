@@ -3,11 +3,18 @@ package com.epam.training.microservices.apigatewayservice.configuration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = StorageServiceProperties.PREFIX)
-public class StorageServiceProperties {
+public class StorageServiceProperties implements ServiceProperties {
   public static final String PREFIX = "storage.service";
   private String name;
   private String path;
   private String uri;
+  private PoolProperties pool = new PoolProperties();
+  private Http2Properties http2 = new Http2Properties();
+  private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
+  private BulkheadProperties bulkhead = new BulkheadProperties();
+  private ConcurrencyLimitProperties concurrencyLimit = new ConcurrencyLimitProperties();
+  private CacheProperties cache = new CacheProperties();
+  private RefreshAheadCacheProperties typeCache = new RefreshAheadCacheProperties();
 
   public String getName() {
     return name;
@@ -32,4 +39,60 @@ public class StorageServiceProperties {
   public void setUri(String uri) {
     this.uri = uri;
   }
+
+  public CacheProperties getCache() {
+    return cache;
+  }
+
+  public void setCache(CacheProperties cache) {
+    this.cache = cache;
+  }
+
+  public RefreshAheadCacheProperties getTypeCache() {
+    return typeCache;
+  }
+
+  public void setTypeCache(RefreshAheadCacheProperties typeCache) {
+    this.typeCache = typeCache;
+  }
+
+  public PoolProperties getPool() {
+    return pool;
+  }
+
+  public void setPool(PoolProperties pool) {
+    this.pool = pool;
+  }
+
+  public Http2Properties getHttp2() {
+    return http2;
+  }
+
+  public void setHttp2(Http2Properties http2) {
+    this.http2 = http2;
+  }
+
+  public CircuitBreakerProperties getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public BulkheadProperties getBulkhead() {
+    return bulkhead;
+  }
+
+  public void setCircuitBreaker(CircuitBreakerProperties circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public void setBulkhead(BulkheadProperties bulkhead) {
+    this.bulkhead = bulkhead;
+  }
+
+  public ConcurrencyLimitProperties getConcurrencyLimit() {
+    return concurrencyLimit;
+  }
+
+  public void setConcurrencyLimit(ConcurrencyLimitProperties concurrencyLimit) {
+    this.concurrencyLimit = concurrencyLimit;
+  }
 }
@@ -0,0 +1,24 @@
+package com.epam.training.microservices.apigatewayservice.configuration;
+
+import org.springframework.util.unit.DataSize;
+
+public class UploadProperties {
+  private DataSize maxRequestSize = DataSize.ofMegabytes(100);
+  private DataSize maxInFlightSize = DataSize.ofMegabytes(512);
+
+  public DataSize getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  public DataSize getMaxInFlightSize() {
+    return maxInFlightSize;
+  }
+
+  public void setMaxRequestSize(DataSize maxRequestSize) {
+    this.maxRequestSize = maxRequestSize;
+  }
+
+  public void setMaxInFlightSize(DataSize maxInFlightSize) {
+    this.maxInFlightSize = maxInFlightSize;
+  }
+}
@@ -0,0 +1,96 @@
+package com.epam.training.microservices.apigatewayservice.startup;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Startup steps of the gateway next to the ones of Spring, shown by the {@code startup} actuator endpoint:
+ * {@code gateway.routes.load}, from the first route refresh to the routes being cached, and {@code gateway.redis.connect},
+ * the first connection to Redis, opened when the gateway starts instead of by the first rate-limited request. The connection
+ * to Eureka, the first registry fetch included, is the {@code spring.beans.instantiate} step of the {@code eurekaClient} bean,
+ * the context refresh the {@code spring.context.refresh} step.
+ */
+@Component
+public class StartupPhases implements SmartLifecycle {
+  private static final Logger log = LoggerFactory.getLogger(StartupPhases.class);
+  private static final Duration REDIS_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private final ApplicationStartup applicationStartup;
+  private final ObjectProvider<ReactiveRedisConnectionFactory> redisConnectionFactory;
+  private final AtomicReference<StartupStep> routesLoad = new AtomicReference<>();
+  private final AtomicBoolean routesLoaded = new AtomicBoolean();
+  private volatile boolean running;
+
+  public StartupPhases(ApplicationStartup applicationStartup,
+      ObjectProvider<ReactiveRedisConnectionFactory> redisConnectionFactory) {
+    this.applicationStartup = applicationStartup;
+    this.redisConnectionFactory = redisConnectionFactory;
+  }
+
+  // ahead of the caching route locator, which loads the routes on the same event
+  @EventListener
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void onRefreshRoutes(RefreshRoutesEvent event) {
+    if (!routesLoaded.get()) {
+      routesLoad.compareAndSet(null, applicationStartup.start("gateway.routes.load"));
+    }
+  }
+
+  @EventListener
+  public void onRoutesRefreshed(RefreshRoutesResultEvent event) {
+    if (routesLoaded.compareAndSet(false, true)) {
+      StartupStep step = routesLoad.getAndSet(null);
+      if (step != null) {
+        step.tag("outcome", event.isSuccess() ? "success" : "failure");
+        step.end();
+      }
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    ReactiveRedisConnectionFactory connectionFactory = redisConnectionFactory.getIfAvailable();
+    if (connectionFactory == null) {
+      return;
+    }
+    final StartupStep step = applicationStartup.start("gateway.redis.connect");
+    Mono.usingWhen(Mono.fromSupplier(connectionFactory::getReactiveConnection), ReactiveRedisConnection::ping,
+            ReactiveRedisConnection::closeLater)
+        .timeout(REDIS_CONNECT_TIMEOUT)
+        .map(pong -> "success")
+        .onErrorResume(error -> {
+          log.warn("Redis is not reachable at startup: {}", error.toString());
+          return Mono.just("failure");
+        })
+        .subscribe(outcome -> {
+          step.tag("outcome", outcome);
+          step.end();
+        });
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+}
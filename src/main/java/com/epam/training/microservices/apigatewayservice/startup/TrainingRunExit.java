@@ -0,0 +1,34 @@
+package com.epam.training.microservices.apigatewayservice.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops the gateway as soon as it has started when {@code startup.training-run} is set. The image build starts the gateway
+ * once this way with {@code -XX:ArchiveClassesAtExit}, the JVM then dumps the classes loaded by the startup into the
+ * class data sharing archive the production gateway starts with. Checked at runtime and not with a condition, conditions of
+ * an AOT processed build are fixed when it is built.
+ */
+@Component
+public class TrainingRunExit implements ApplicationListener<ApplicationReadyEvent> {
+  private static final Logger log = LoggerFactory.getLogger(TrainingRunExit.class);
+  private final boolean trainingRun;
+
+  public TrainingRunExit(@Value("${startup.training-run:false}") boolean trainingRun) {
+    this.trainingRun = trainingRun;
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    if (!trainingRun) {
+      return;
+    }
+    log.info("Training run started in {}, exiting", event.getTimeTaken());
+    System.exit(SpringApplication.exit(event.getApplicationContext()));
+  }
+}
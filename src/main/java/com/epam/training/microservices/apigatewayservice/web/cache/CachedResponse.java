@@ -0,0 +1,25 @@
+package com.epam.training.microservices.apigatewayservice.web.cache;
+
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+  private static final List<String> CACHED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+      HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED);
+
+  public static CachedResponse of(HttpStatusCode status, HttpHeaders responseHeaders, byte[] body) {
+    HttpHeaders headers = new HttpHeaders();
+    for (String name : CACHED_HEADERS) {
+      List<String> values = responseHeaders.get(name);
+      if (values != null) {
+        headers.put(name, values);
+      }
+    }
+    return new CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), body);
+  }
+
+  int weight() {
+    return body.length;
+  }
+}
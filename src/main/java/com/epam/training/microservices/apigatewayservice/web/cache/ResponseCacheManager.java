@@ -0,0 +1,77 @@
+package com.epam.training.microservices.apigatewayservice.web.cache;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CacheProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the in-memory response caches of the downstream services, one per service and bounded by the total size of the cached
+ * bodies. Hits, misses and evictions are published as the cache.gets, cache.evictions and cache.size meters tagged with the
+ * service name. Responses larger than the max entry size of a cache are not kept in it.
+ */
+@Component
+public class ResponseCacheManager {
+  private static final Logger log = LoggerFactory.getLogger(ResponseCacheManager.class);
+  private final Map<String, Cache<String, CachedResponse>> caches = new HashMap<>();
+  private final Map<String, Long> maxEntrySizes = new HashMap<>();
+
+  public ResponseCacheManager(SongServiceProperties songServiceProperties, StorageServiceProperties storageServiceProperties,
+      MeterRegistry meterRegistry) {
+    register(songServiceProperties.getName(), songServiceProperties.getCache(), meterRegistry);
+    register(storageServiceProperties.getName(), storageServiceProperties.getCache(), meterRegistry);
+  }
+
+  private void register(String name, CacheProperties properties, MeterRegistry meterRegistry) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+        .maximumWeight(properties.getMaxSize().toBytes())
+        .weigher((String key, CachedResponse response) -> key.length() + response.weight())
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    caches.put(name, cache);
+    maxEntrySizes.put(name, properties.getMaxEntrySize().toBytes());
+    log.info("Response cache of {} enabled, ttl {}, max size {}, max entry size {}", name, properties.getTtl(),
+        properties.getMaxSize(), properties.getMaxEntrySize());
+  }
+
+  /**
+   * Returns the cache of the service, or null when caching is disabled for it.
+   */
+  public Cache<String, CachedResponse> getCache(String name) {
+    return caches.get(name);
+  }
+
+  /**
+   * Returns the size of the largest body the cache of the service keeps, or 0 when caching is disabled for it.
+   */
+  public long getMaxEntrySize(String name) {
+    return maxEntrySizes.getOrDefault(name, 0L);
+  }
+
+  public void invalidate(String name, String key) {
+    Cache<String, CachedResponse> cache = caches.get(name);
+    if (cache != null) {
+      cache.invalidate(key);
+    }
+  }
+
+  public void invalidateAll(String name) {
+    Cache<String, CachedResponse> cache = caches.get(name);
+    if (cache != null) {
+      cache.invalidateAll();
+    }
+  }
+}
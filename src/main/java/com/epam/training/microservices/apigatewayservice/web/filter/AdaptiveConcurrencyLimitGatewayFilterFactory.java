@@ -0,0 +1,107 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.AdaptiveConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adaptive rate limit mode of a route: requests beyond the {@link AdaptiveConcurrencyLimit} of the service are rejected with
+ * 503 before they reach it. The routes of a service in this mode share its limit. The response time is measured up to the
+ * commit of the upstream response headers, not the end of the body; errors, timeouts and 503 or 429 upstream responses count
+ * as dropped requests.
+ */
+@Component
+public class AdaptiveConcurrencyLimitGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<AdaptiveConcurrencyLimitGatewayFilterFactory.Config> {
+  private final Map<String, AdaptiveConcurrencyLimit> limits = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+
+  public AdaptiveConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    final ServiceProperties service = config.service;
+    final AdaptiveConcurrencyLimit limit = limits.computeIfAbsent(service.getName(), name -> concurrencyLimit(service));
+    final Counter rejected = Counter.builder("gateway.concurrency-limit.rejected")
+        .description("Requests rejected by the adaptive concurrency limit of the service")
+        .tag("service", service.getName())
+        .register(meterRegistry);
+    return (exchange, chain) -> {
+      if (!limit.tryAcquire()) {
+        rejected.increment();
+        return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+            service.getName() + " is at its concurrency limit of " + limit.getLimit()));
+      }
+      final long startTime = System.nanoTime();
+      final AtomicBoolean released = new AtomicBoolean();
+      // sampled when the upstream response headers are committed, a slowly streamed body is no sign of an overloaded service
+      exchange.getResponse().beforeCommit(() -> {
+        release(limit, released, exchange.getResponse().getStatusCode(), startTime);
+        return Mono.empty();
+      });
+      return chain.filter(exchange)
+          .doOnSuccess(done -> release(limit, released, exchange.getResponse().getStatusCode(), startTime))
+          .doOnError(error -> {
+            if (released.compareAndSet(false, true)) {
+              limit.onDropped();
+            }
+          })
+          .doOnCancel(() -> {
+            if (released.compareAndSet(false, true)) {
+              limit.onIgnored();
+            }
+          });
+    };
+  }
+
+  private static void release(AdaptiveConcurrencyLimit limit, AtomicBoolean released, HttpStatusCode status, long startTime) {
+    if (released.compareAndSet(false, true)) {
+      if (isOverloaded(status)) {
+        limit.onDropped();
+      } else {
+        limit.onSuccess(System.nanoTime() - startTime);
+      }
+    }
+  }
+
+  private AdaptiveConcurrencyLimit concurrencyLimit(ServiceProperties service) {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(service.getConcurrencyLimit());
+    Gauge.builder("gateway.concurrency-limit.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+        .description("Current adaptive concurrency limit of the service")
+        .tag("service", service.getName())
+        .register(meterRegistry);
+    Gauge.builder("gateway.concurrency-limit.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+        .description("Requests to the service counted against its adaptive concurrency limit")
+        .tag("service", service.getName())
+        .register(meterRegistry);
+    return limit;
+  }
+
+  private static boolean isOverloaded(HttpStatusCode status) {
+    return status != null
+        && (status.value() == HttpStatus.SERVICE_UNAVAILABLE.value() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value());
+  }
+
+  public static class Config {
+    private final ServiceProperties service;
+
+    public Config(ServiceProperties service) {
+      this.service = service;
+    }
+  }
+}
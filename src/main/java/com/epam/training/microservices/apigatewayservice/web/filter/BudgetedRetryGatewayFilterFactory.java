@@ -0,0 +1,151 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RetryProperties;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.ExcludedInstanceServiceInstanceListSupplier;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.RequestBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Retries idempotent requests that failed with an I/O error, like a connection reset or refused by the instance, before
+ * anything of the response reached the client. GETs are retried on any I/O error, DELETEs only when no connection could be
+ * established, a DELETE that reached the service may have been carried out. Retries back off exponentially with jitter, go
+ * to an instance the request has not been sent to yet and are paid from the {@link RequestBudget}; when the budget is spent
+ * the error goes to the client. Counts per route the retries sent, the requests that succeeded after a retry and the retries
+ * the budget denied.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(BudgetedRetryGatewayFilterFactory.class);
+  private final RetryProperties properties;
+  private final RequestBudget requestBudget;
+  private final MeterRegistry meterRegistry;
+
+  public BudgetedRetryGatewayFilterFactory(RetryProperties properties, RequestBudget requestBudget,
+      MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.properties = properties;
+    this.requestBudget = requestBudget;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    final Counter attempted = retries(config.routeId, "attempted");
+    final Counter succeeded = retries(config.routeId, "succeeded");
+    final Counter denied = retries(config.routeId, "denied");
+    return (exchange, chain) -> {
+      HttpMethod method = exchange.getRequest().getMethod();
+      if (!properties.isEnabled() || (method != HttpMethod.GET && method != HttpMethod.DELETE)) {
+        return chain.filter(exchange);
+      }
+      requestBudget.deposit(exchange);
+      final Attempts attempts = new Attempts(exchange);
+      return Mono.defer(() -> chain.filter(attempts.next()))
+          .retryWhen(Retry.backoff(Long.MAX_VALUE, properties.getFirstBackoff())
+              .maxBackoff(properties.getMaxBackoff())
+              .jitter(properties.getJitter())
+              .filter(error -> {
+                // the retry count is checked first, the budget is only paid for a retry that is actually sent
+                if (attempts.retries >= properties.getMaxRetries() || !isRetryable(exchange, error)) {
+                  return false;
+                }
+                if (!requestBudget.tryWithdraw()) {
+                  denied.increment();
+                  return false;
+                }
+                attempts.failed();
+                attempted.increment();
+                log.debug("Retrying {} {} after {}", exchange.getRequest().getMethod(), exchange.getRequest().getURI(),
+                    error.toString());
+                return true;
+              })
+              .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+          .doOnSuccess(done -> {
+            if (attempts.retries > 0) {
+              succeeded.increment();
+            }
+          });
+    };
+  }
+
+  private static boolean isRetryable(ServerWebExchange exchange, Throwable error) {
+    if (exchange.getResponse().isCommitted()) {
+      return false;
+    }
+    // a DELETE closed prematurely may have been carried out already, it is only resent when it never left the gateway
+    boolean anyIoError = exchange.getRequest().getMethod() == HttpMethod.GET;
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException || (anyIoError && cause instanceof IOException)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Counter retries(String routeId, String outcome) {
+    return Counter.builder("gateway.retry.retries")
+        .description("Retries of failed upstream requests by outcome: attempted, succeeded after a retry, denied by the budget")
+        .tag("routeId", routeId)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  public static class Config {
+    private final String routeId;
+
+    public Config(String routeId) {
+      this.routeId = routeId;
+    }
+  }
+
+  /**
+   * The instances a request failed on, each retry is sent with them excluded from load balancing.
+   */
+  private static class Attempts {
+    private final ServerWebExchange exchange;
+    private final List<String> failedInstances = new ArrayList<>();
+    private int retries;
+
+    Attempts(ServerWebExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    void failed() {
+      URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+      if (requestUrl != null && requestUrl.getHost() != null) {
+        failedInstances.add(requestUrl.getHost() + ':' + requestUrl.getPort());
+      }
+      retries++;
+    }
+
+    ServerWebExchange next() {
+      if (retries == 0) {
+        return exchange;
+      }
+      ServerWebExchangeUtils.reset(exchange);
+      if (failedInstances.isEmpty()) {
+        return exchange;
+      }
+      return exchange.mutate()
+          .request(request -> request.headers(headers -> headers.addAll(
+              ExcludedInstanceServiceInstanceListSupplier.EXCLUDED_INSTANCE_HEADER, List.copyOf(failedInstances))))
+          .build();
+    }
+  }
+}
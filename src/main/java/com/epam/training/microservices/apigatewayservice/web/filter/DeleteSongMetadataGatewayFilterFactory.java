@@ -1,44 +1,74 @@
 package com.epam.training.microservices.apigatewayservice.web.filter;
 
-import java.util.HashMap;
+import com.epam.training.microservices.apigatewayservice.configuration.CascadeDeleteProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.support.JsonArrayEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import java.util.Map;
-import java.util.function.BiFunction;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.cloud.gateway.filter.factory.rewrite.ModifyResponseBodyGatewayFilterFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.HttpMessageReader;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.BodyExtractor;
+import org.springframework.web.reactive.function.BodyExtractors;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
 public class DeleteSongMetadataGatewayFilterFactory extends AbstractGatewayFilterFactory<DeleteSongMetadataGatewayFilterFactory.Config> {
   private static final Logger log = LoggerFactory.getLogger(DeleteSongMetadataGatewayFilterFactory.class);
-  private static final String FIELD_RESOURCE_ID = "resourceId";
   private static final String FIELD_ID = "id";
-  private static final String FIELD_SONG_METADATA = "song_metadata";
+  private static final String LB_SCHEME = "lb://";
+  private static final ParameterizedTypeReference<Map<String, Object>> RECORD_TYPE = new ParameterizedTypeReference<>() {};
   private final ModifyResponseBodyGatewayFilterFactory modifyResponseBodyGatewayFilterFactory;
-  private final WebClient webClient;
+  private final SongMetadataDeleteBatcher songMetadataDeleteBatcher;
+  private final SongMetadataMerger songMetadataMerger;
+  private final CascadeDeleteProperties properties;
+  private final BodyExtractor.Context decoderContext;
+  private final JsonArrayEncoder encoder;
 
 
   @Autowired
   public DeleteSongMetadataGatewayFilterFactory(ModifyResponseBodyGatewayFilterFactory modifyResponseBodyGatewayFilterFactory,
-      WebClient webClient) {
+      SongMetadataDeleteBatcher songMetadataDeleteBatcher, SongMetadataMerger songMetadataMerger, CascadeDeleteProperties properties,
+      ObjectMapper objectMapper) {
     super(Config.class);
     this.modifyResponseBodyGatewayFilterFactory = modifyResponseBodyGatewayFilterFactory;
-    this.webClient = webClient;
+    this.songMetadataDeleteBatcher = songMetadataDeleteBatcher;
+    this.songMetadataMerger = songMetadataMerger;
+    this.properties = properties;
+    this.decoderContext = new JsonDecoderContext(new Jackson2JsonDecoder(objectMapper));
+    this.encoder = new JsonArrayEncoder(objectMapper);
   }
 
   @Override
   public GatewayFilter apply(DeleteSongMetadataGatewayFilterFactory.Config config) {
+    if (properties.isStreaming()) {
+      // must wrap the response before NettyWriteResponseFilter writes the upstream body to it
+      return new OrderedGatewayFilter((exchange, chain) -> chain.filter(exchange.mutate()
+          .response(new SongMetadataResponseDecorator(exchange.getResponse(), config))
+          .build()), NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
     return modifyResponseBodyGatewayFilterFactory.apply(c -> c.setRewriteFunction(Object.class, Object.class,
         (serverWebExchange, response) -> {
           HttpStatusCode statusCode = serverWebExchange.getResponse().getStatusCode();
@@ -47,58 +77,108 @@ public class DeleteSongMetadataGatewayFilterFactory extends AbstractGatewayFilte
             return Mono.just(response);
           }
           final List<Map<String, Object>> resourceRecords = (List<Map<String, Object>>) response;
-          final String resourceIds = extractResourceIds(resourceRecords);
+          final List<String> resourceIds = extractResourceIds(resourceRecords);
           log.debug("Deleted resource ids {}", resourceIds);
-          if(StringUtils.hasText(resourceIds)) {
-            return deleteSongMetadataByResourceIds(config, resourceIds, resourceRecords);
+          if(!resourceIds.isEmpty()) {
+            return songMetadataDeleteBatcher.delete(config.resourceUri, config.queryParam, resourceIds)
+                .flatMap(songRecords -> songMetadataMerger.merge(songRecords, resourceRecords))
+                .cast(Object.class);
           }
           return Mono.just(response);
         }));
   }
 
-  private Mono<Object> deleteSongMetadataByResourceIds(Config config, String resourceIds, List<Map<String, Object>> resourceRecords) {
-    log.info("Sending a request to delete song records by resource ids '{}'", resourceIds);
-    return webClient.delete()
-        .uri(uriBuilder -> uriBuilder
-            .path(config.resourcePath)
-            .queryParam(config.queryParam, resourceIds)
-            .build())
-        .accept(MediaType.APPLICATION_JSON)
-        .exchangeToMono(clientResponse -> clientResponse.bodyToMono(new ParameterizedTypeReference<List<Map<String, Object>>>() {})
-            .map(songRecords -> mapSongRecordToResourceRecord(songRecords, resourceRecords)));
+  static List<String> extractResourceIds(List<Map<String, Object>> input) {
+    return input.stream()
+        .map(bodyMap -> bodyMap.get(FIELD_ID).toString())
+        .toList();
   }
 
-  private List<Map<String, Object>> mapSongRecordToResourceRecord(List<Map<String, Object>> songRecords,
-      List<Map<String, Object>> resourceRecords) {
-    log.info("Deleted song records: {}", songRecords);
-    Map<Integer, Map<String, Object>> songRecordEntries = songRecords.stream()
-        .collect(Collectors.toMap(pr -> (int) pr.get(FIELD_RESOURCE_ID), pr -> pr, (a, b) -> a, () -> new HashMap<>(songRecords.size())));
+  public static class Config {
+    private final String resourceUri;
+    private final String queryParam;
 
-    resourceRecords.parallelStream().forEach(resourceRecord -> populateSongRecord.apply(resourceRecord, songRecordEntries));
-    log.debug("Mapped resource records after deleting song records: {}", resourceRecords);
-    return resourceRecords;
+    public Config(ServiceProperties service, String resourcePath, String queryParam) {
+      // straight to the service, the load-balanced web client resolves the host of an http URI as the service name
+      String serviceUri = service.getUri().startsWith(LB_SCHEME)
+          ? "http://" + service.getUri().substring(LB_SCHEME.length())
+          : service.getUri();
+      this.resourceUri = serviceUri + service.getPath() + resourcePath;
+      this.queryParam = queryParam;
+    }
   }
 
-  BiFunction<Map<String, Object>, Map<Integer, Map<String, Object>>, Map<String, Object>> populateSongRecord =
-      (resourceRecord, songRecordsByResourceId) -> {
+  /**
+   * Decodes the deleted resource records one at a time while the upstream body arrives, deletes their song metadata a chunk at
+   * a time, a bounded number of chunks at once, and writes the merged records out in their original order as soon as their
+   * chunk is done, so memory is bounded by the chunk size and concurrency instead of the size of the response.
+   */
+  private class SongMetadataResponseDecorator extends ServerHttpResponseDecorator {
+    private final Config config;
 
-        resourceRecord.put(FIELD_SONG_METADATA, songRecordsByResourceId.get(resourceRecord.get(FIELD_ID)));
-        return resourceRecord;
-      };
+    SongMetadataResponseDecorator(ServerHttpResponse delegate, Config config) {
+      super(delegate);
+      this.config = config;
+    }
 
-  private String extractResourceIds(List<Map<String, Object>> input) {
-    return input.stream()
-        .map(bodyMap -> bodyMap.get(FIELD_ID).toString())
-        .collect(Collectors.joining(","));
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      HttpStatusCode statusCode = getStatusCode();
+      log.info("Processing response body with status code {}", statusCode);
+      if (statusCode != null && statusCode.isError()) {
+        return super.writeWith(body);
+      }
+      getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+      Flux<Map<String, Object>> resourceRecords = BodyExtractors.toFlux(RECORD_TYPE)
+          .extract(new JsonInputMessage(Flux.from(body)), decoderContext);
+      Flux<Map<String, Object>> mappedRecords = resourceRecords
+          .buffer(properties.getChunkSize())
+          .flatMapSequential(this::deleteSongMetadata, properties.getMaxConcurrency())
+          .flatMapIterable(Function.identity());
+      return super.writeWith(encoder.encode(mappedRecords, bufferFactory()));
+    }
+
+    private Mono<List<Map<String, Object>>> deleteSongMetadata(List<Map<String, Object>> resourceRecords) {
+      final List<String> resourceIds = extractResourceIds(resourceRecords);
+      log.debug("Deleted resource ids {}", resourceIds);
+      return songMetadataDeleteBatcher.deleteChunk(config.resourceUri, config.queryParam, resourceIds)
+          .flatMap(songRecords -> songMetadataMerger.merge(songRecords, resourceRecords));
+    }
   }
 
-  public static class Config {
-    private final String resourcePath;
-    private final String queryParam;
+  private record JsonInputMessage(Flux<DataBuffer> body) implements ReactiveHttpInputMessage {
+    private static final HttpHeaders HEADERS = HttpHeaders.readOnlyHttpHeaders(jsonHeaders());
 
-    public Config(String resourcePath, String queryParam) {
-      this.resourcePath = resourcePath;
-      this.queryParam = queryParam;
+    @Override
+    public Flux<DataBuffer> getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return HEADERS;
+    }
+
+    private static HttpHeaders jsonHeaders() {
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      return headers;
+    }
+  }
+
+  private record JsonDecoderContext(List<HttpMessageReader<?>> messageReaders) implements BodyExtractor.Context {
+    JsonDecoderContext(Jackson2JsonDecoder decoder) {
+      this(List.of(new DecoderHttpMessageReader<>(decoder)));
+    }
+
+    @Override
+    public Optional<ServerHttpResponse> serverResponse() {
+      return Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> hints() {
+      return Map.of();
     }
   }
 }
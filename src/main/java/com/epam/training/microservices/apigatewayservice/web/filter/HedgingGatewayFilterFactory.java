@@ -0,0 +1,429 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.HedgingProperties;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.ExcludedInstanceServiceInstanceListSupplier;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.RequestBudget;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.TimeWindowPercentileHistogram;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Hedged requests for idempotent GETs: when the upstream has not answered within the hedge delay of the route, a second
+ * attempt goes to another instance of the service, the first attempt to answer wins and the other one is cancelled. The delay
+ * is the configured percentile of the recent response times of the route, clamped to the min and max delay; routes hedge
+ * only after min-samples responses. Every hedge is paid from the {@link RequestBudget}, without budget the request waits for
+ * its first attempt. The rate limit of the route is charged once ahead of the hedge, each attempt runs the rest of the route on
+ * an exchange of its own and a 5xx or 429 answer is dropped while the other attempt is still running. Responses won by the
+ * hedge carry the {@value #HEDGED_HEADER} header.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+  public static final String HEDGED_HEADER = "X-Gateway-Hedged";
+  private static final Object NO_WINNER = new Object();
+  private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private final HedgingProperties properties;
+  private final RequestBudget requestBudget;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, LatencyEstimate> estimates = new ConcurrentHashMap<>();
+  private final Counter sent;
+  private final Counter hedgeWins;
+
+  public HedgingGatewayFilterFactory(HedgingProperties properties, RequestBudget requestBudget, MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.properties = properties;
+    this.requestBudget = requestBudget;
+    this.meterRegistry = meterRegistry;
+    this.sent = Counter.builder("gateway.hedging.hedges")
+        .description("Hedged requests sent to the upstream")
+        .register(meterRegistry);
+    this.hedgeWins = Counter.builder("gateway.hedging.hedge-wins")
+        .description("Hedged requests answered before the first attempt")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    final LatencyEstimate estimate = estimates.computeIfAbsent(config.routeId, this::latencyEstimate);
+    // the attempts need the response to themselves until one of them wins, NettyWriteResponseFilter writes to it
+    return new OrderedGatewayFilter((exchange, chain) -> {
+      if (!properties.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+        return chain.filter(exchange);
+      }
+      requestBudget.deposit(exchange);
+      final Race race = new Race(exchange, estimate);
+      final Mono<Void> primary = race.run(chain, race.primary());
+      final long delayNanos = estimate.delayNanos();
+      if (delayNanos < 0) {
+        return primary.then(Mono.defer(race::outcome));
+      }
+      final Mono<Void> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+          .takeUntilOther(race.settled())
+          .flatMap(tick -> {
+            if (race.isSettled() || !requestBudget.tryWithdraw()) {
+              return Mono.empty();
+            }
+            sent.increment();
+            return race.run(chain, race.hedge());
+          });
+      return Mono.when(primary, hedge).then(Mono.defer(race::outcome));
+    }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  private LatencyEstimate latencyEstimate(String routeId) {
+    LatencyEstimate estimate = new LatencyEstimate(properties);
+    TimeGauge.builder("gateway.hedging.delay", estimate, TimeUnit.NANOSECONDS, value -> Math.max(0, value.delayNanos()))
+        .description("Time a request waits for its first attempt before it is hedged")
+        .tag("routeId", routeId)
+        .register(meterRegistry);
+    return estimate;
+  }
+
+  private static boolean isFailure(HttpStatusCode status) {
+    return status != null && (status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value());
+  }
+
+  public static class Config {
+    private final String routeId;
+
+    public Config(String routeId) {
+      this.routeId = routeId;
+    }
+  }
+
+  /**
+   * Recent response times of a route. The hedge delay is recomputed from them at most once a second.
+   */
+  private static class LatencyEstimate {
+    private final TimeWindowPercentileHistogram histogram;
+    private final long minSamples;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final AtomicLong samples = new AtomicLong();
+    // computed by the first request, then at most once a second
+    private final AtomicLong computedAt = new AtomicLong(System.nanoTime() - DELAY_REFRESH_NANOS - 1);
+    private volatile long delayNanos = -1;
+
+    LatencyEstimate(HedgingProperties properties) {
+      this.histogram = new TimeWindowPercentileHistogram(Clock.SYSTEM, DistributionStatisticConfig.builder()
+          .percentiles(properties.getPercentile())
+          .expiry(properties.getLatencyWindow())
+          .bufferLength(3)
+          .build()
+          .merge(DistributionStatisticConfig.DEFAULT), false);
+      this.minSamples = properties.getMinSamples();
+      this.minDelayNanos = properties.getMinDelay().toNanos();
+      this.maxDelayNanos = properties.getMaxDelay().toNanos();
+    }
+
+    void record(long nanos) {
+      histogram.recordLong(nanos);
+      samples.incrementAndGet();
+    }
+
+    /**
+     * Returns the hedge delay, or -1 while the route has too few samples to tell.
+     */
+    long delayNanos() {
+      long now = System.nanoTime();
+      long last = computedAt.get();
+      if (now - last > DELAY_REFRESH_NANOS && computedAt.compareAndSet(last, now)) {
+        delayNanos = samples.get() < minSamples ? -1 : compute();
+      }
+      return delayNanos;
+    }
+
+    private long compute() {
+      ValueAtPercentile[] percentiles = histogram.takeSnapshot(0, 0, 0).percentileValues();
+      if (percentiles.length == 0) {
+        return -1;
+      }
+      return Math.max(minDelayNanos, Math.min(maxDelayNanos, (long) percentiles[0].value()));
+    }
+  }
+
+  /**
+   * The attempts of one request. The first acceptable answer settles the race and cancels the other attempt, when every
+   * attempt ends without one the race settles without a winner and the request ends with the error of the first failed
+   * attempt.
+   */
+  private final class Race {
+    private final ServerWebExchange exchange;
+    private final LatencyEstimate estimate;
+    private final long startTime = System.nanoTime();
+    private final Sinks.One<Object> settled = Sinks.one();
+    private Attempt primary;
+    private Attempt winner;
+    private Throwable error;
+    private int running;
+    private boolean over;
+
+    Race(ServerWebExchange exchange, LatencyEstimate estimate) {
+      this.exchange = exchange;
+      this.estimate = estimate;
+    }
+
+    Attempt primary() {
+      primary = new Attempt(this, exchange.getRequest(), false);
+      return primary;
+    }
+
+    Attempt hedge() {
+      ServerHttpRequest request = exchange.getRequest();
+      URI primaryUrl = primary.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+      if (primaryUrl != null && primaryUrl.getHost() != null) {
+        String instance = primaryUrl.getHost() + ':' + primaryUrl.getPort();
+        request = request.mutate()
+            .headers(headers -> headers.set(ExcludedInstanceServiceInstanceListSupplier.EXCLUDED_INSTANCE_HEADER, instance))
+            .build();
+      }
+      return new Attempt(this, request, true);
+    }
+
+    Mono<Void> run(GatewayFilterChain chain, Attempt attempt) {
+      if (!start()) {
+        return Mono.empty();
+      }
+      return chain.filter(attempt)
+          .takeUntilOther(settled.asMono().filter(settledBy -> settledBy != attempt).switchIfEmpty(Mono.never()))
+          .onErrorResume(failure -> {
+            end(attempt, failure);
+            return Mono.empty();
+          })
+          .then(Mono.fromRunnable(() -> end(attempt, null)));
+    }
+
+    Mono<Object> settled() {
+      return settled.asMono();
+    }
+
+    synchronized boolean isSettled() {
+      return over;
+    }
+
+    Mono<Void> outcome() {
+      synchronized (this) {
+        if (winner != null || error == null) {
+          return Mono.empty();
+        }
+      }
+      return Mono.error(error);
+    }
+
+    private synchronized boolean start() {
+      if (over) {
+        return false;
+      }
+      running++;
+      return true;
+    }
+
+    /**
+     * Returns whether the answer of the attempt goes to the client.
+     */
+    boolean answer(Attempt attempt, HttpStatusCode status) {
+      synchronized (this) {
+        if (over || attempt.done) {
+          return false;
+        }
+        attempt.done = true;
+        running--;
+        if (running > 0 && isFailure(status)) {
+          return false;
+        }
+        over = true;
+        winner = attempt;
+      }
+      estimate.record(System.nanoTime() - startTime);
+      if (attempt.hedge) {
+        hedgeWins.increment();
+      }
+      exchange.getAttributes().putAll(attempt.getAttributes());
+      settled.tryEmitValue(attempt);
+      return true;
+    }
+
+    private void end(Attempt attempt, Throwable failure) {
+      synchronized (this) {
+        if (attempt.done) {
+          return;
+        }
+        attempt.done = true;
+        running--;
+        if (failure != null && error == null) {
+          error = failure;
+        }
+        if (over || running > 0) {
+          return;
+        }
+        over = true;
+      }
+      settled.tryEmitValue(NO_WINNER);
+    }
+  }
+
+  /**
+   * One attempt of a request, with attributes and a response of its own.
+   */
+  private static class Attempt extends ServerWebExchangeDecorator {
+    private final ServerHttpRequest request;
+    private final AttemptResponse response;
+    private final Map<String, Object> attributes;
+    private final boolean hedge;
+    private boolean done;
+
+    Attempt(Race race, ServerHttpRequest request, boolean hedge) {
+      super(race.exchange);
+      this.request = request;
+      this.response = new AttemptResponse(race, this);
+      this.attributes = new ConcurrentHashMap<>(race.exchange.getAttributes());
+      this.hedge = hedge;
+    }
+
+    @Override
+    public ServerHttpRequest getRequest() {
+      return request;
+    }
+
+    @Override
+    public ServerHttpResponse getResponse() {
+      return response;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+      return attributes;
+    }
+  }
+
+  /**
+   * Keeps status and headers to itself, only the response of the winning attempt is written to the client.
+   */
+  private static class AttemptResponse extends ServerHttpResponseDecorator {
+    private final Race race;
+    private final Attempt attempt;
+    private final HttpHeaders headers = new HttpHeaders();
+    private final List<Supplier<? extends Mono<Void>>> commitActions = new ArrayList<>();
+    private HttpStatusCode status;
+    private volatile boolean won;
+
+    AttemptResponse(Race race, Attempt attempt) {
+      super(race.exchange.getResponse());
+      this.race = race;
+      this.attempt = attempt;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public boolean setStatusCode(HttpStatusCode status) {
+      this.status = status;
+      return true;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+      return status;
+    }
+
+    @Override
+    public boolean setRawStatusCode(Integer value) {
+      this.status = value == null ? null : HttpStatusCode.valueOf(value);
+      return true;
+    }
+
+    @Override
+    @Deprecated
+    public Integer getRawStatusCode() {
+      return status == null ? null : status.value();
+    }
+
+    @Override
+    public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+      commitActions.add(action);
+    }
+
+    @Override
+    public boolean isCommitted() {
+      // nothing of an attempt reaches the client before it won
+      return won && getDelegate().isCommitted();
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      if (!race.answer(attempt, status)) {
+        return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+      }
+      commit();
+      return getDelegate().writeWith(body);
+    }
+
+    @Override
+    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+      if (!race.answer(attempt, status)) {
+        return Flux.from(body).concatMap(Flux::from).doOnNext(DataBufferUtils::release).then();
+      }
+      commit();
+      return getDelegate().writeAndFlushWith(body);
+    }
+
+    @Override
+    public Mono<Void> setComplete() {
+      if (!race.answer(attempt, status)) {
+        return Mono.empty();
+      }
+      commit();
+      return getDelegate().setComplete();
+    }
+
+    private void commit() {
+      won = true;
+      ServerHttpResponse response = getDelegate();
+      if (status != null) {
+        response.setStatusCode(status);
+      }
+      response.getHeaders().putAll(headers);
+      if (attempt.hedge) {
+        response.getHeaders().set(HEDGED_HEADER, "true");
+      }
+      commitActions.forEach(response::beforeCommit);
+    }
+  }
+}
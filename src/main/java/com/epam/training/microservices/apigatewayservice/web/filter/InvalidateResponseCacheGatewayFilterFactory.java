@@ -0,0 +1,62 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.web.cache.ResponseCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Drops the cached responses a delete request makes stale, once the delete has completed. With a query param the entries of the
+ * listed ids are dropped, otherwise the whole cache, as it is then not known which entries are affected.
+ */
+@Component
+public class InvalidateResponseCacheGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<InvalidateResponseCacheGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(InvalidateResponseCacheGatewayFilterFactory.class);
+  private final ResponseCacheManager responseCacheManager;
+
+  public InvalidateResponseCacheGatewayFilterFactory(ResponseCacheManager responseCacheManager) {
+    super(Config.class);
+    this.responseCacheManager = responseCacheManager;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    return (exchange, chain) -> chain.filter(exchange)
+        .doFinally(signalType -> invalidate(exchange, config));
+  }
+
+  private void invalidate(ServerWebExchange exchange, Config config) {
+    if (config.queryParam == null) {
+      log.debug("Invalidating all cached responses of {}", config.cacheName);
+      responseCacheManager.invalidateAll(config.cacheName);
+      return;
+    }
+    String ids = exchange.getRequest().getQueryParams().getFirst(config.queryParam);
+    if (StringUtils.hasText(ids)) {
+      for (String id : StringUtils.commaDelimitedListToStringArray(ids)) {
+        responseCacheManager.invalidate(config.cacheName, config.pathPrefix + "/" + id.trim());
+      }
+    }
+  }
+
+  public static class Config {
+    private final String cacheName;
+    private final String pathPrefix;
+    private final String queryParam;
+
+    public Config(String cacheName) {
+      this(cacheName, null, null);
+    }
+
+    public Config(String cacheName, String pathPrefix, String queryParam) {
+      this.cacheName = cacheName;
+      this.pathPrefix = pathPrefix;
+      this.queryParam = queryParam;
+    }
+  }
+}
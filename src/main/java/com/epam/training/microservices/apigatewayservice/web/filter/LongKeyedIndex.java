@@ -0,0 +1,87 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+/**
+ * Open-addressing hash index keyed by primitive longs, so that looking up records by id neither boxes the id nor narrows it.
+ * Keeps the first value stored for a key.
+ */
+final class LongKeyedIndex<V> {
+  private static final int MAX_CAPACITY = 1 << 30;
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  LongKeyedIndex(int expectedSize) {
+    allocate(capacityFor(expectedSize));
+  }
+
+  boolean putIfAbsent(long key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Null values are not supported");
+    }
+    if ((size + 1) * 2 > keys.length && keys.length < MAX_CAPACITY) {
+      resize(keys.length << 1);
+    }
+    int index = indexOf(key);
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    size++;
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    int index = indexOf(key);
+    while (values[index] != null) {
+      if (keys[index] == key) {
+        return (V) values[index];
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private int indexOf(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    size = 0;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != null) {
+        int index = indexOf(oldKeys[i]);
+        while (values[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+        size++;
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  private static int capacityFor(int expectedSize) {
+    int required = (int) Math.min(MAX_CAPACITY, Math.max(2L, expectedSize * 2L));
+    return Integer.highestOneBit(required - 1) << 1;
+  }
+}
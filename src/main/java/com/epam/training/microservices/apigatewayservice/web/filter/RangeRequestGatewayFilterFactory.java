@@ -0,0 +1,143 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import java.util.List;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adds byte range and conditional request support to binary downloads. Range and validator headers are forwarded as they are,
+ * so an upstream that answers with 206 or 304 itself is passed through. When the upstream ignores them and sends the full body,
+ * the gateway answers 304 from the upstream validators or cuts the requested range out of the upstream byte stream, without
+ * buffering the body and cancelling the upstream transfer once the range has been sent.
+ */
+@Component
+public class RangeRequestGatewayFilterFactory extends AbstractGatewayFilterFactory<RangeRequestGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(RangeRequestGatewayFilterFactory.class);
+  private static final String BYTES = "bytes";
+  private static final String IF_RANGE = "If-Range";
+  private static final String WEAK_PREFIX = "W/";
+
+  public RangeRequestGatewayFilterFactory() {
+    super(Config.class);
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    return new OrderedGatewayFilter((exchange, chain) -> chain.filter(exchange.mutate()
+        .response(new RangeResponseDecorator(exchange.getResponse(), exchange.getRequest().getHeaders()))
+        .build()), NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  public static class Config {
+  }
+
+  private static class RangeResponseDecorator extends ServerHttpResponseDecorator {
+    private final HttpHeaders requestHeaders;
+
+    RangeResponseDecorator(ServerHttpResponse delegate, HttpHeaders requestHeaders) {
+      super(delegate);
+      this.requestHeaders = requestHeaders;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      if (!HttpStatus.OK.equals(getStatusCode())) {
+        return super.writeWith(body);
+      }
+      HttpHeaders headers = getHeaders();
+      headers.set(HttpHeaders.ACCEPT_RANGES, BYTES);
+      if (isNotModified(headers)) {
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        setStatusCode(HttpStatus.NOT_MODIFIED);
+        return discard(body);
+      }
+      long contentLength = headers.getContentLength();
+      HttpRange range = singleRange();
+      if (range == null || contentLength < 0 || !isRangeApplicable(headers)) {
+        return super.writeWith(body);
+      }
+      final long start;
+      final long end;
+      try {
+        start = range.getRangeStart(contentLength);
+        end = range.getRangeEnd(contentLength);
+      } catch (IllegalArgumentException e) {
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        headers.set(HttpHeaders.CONTENT_RANGE, BYTES + " */" + contentLength);
+        setStatusCode(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        return discard(body);
+      }
+      long rangeLength = end - start + 1;
+      log.debug("Serving bytes {}-{} of {} from the full upstream body", start, end, contentLength);
+      setStatusCode(HttpStatus.PARTIAL_CONTENT);
+      headers.set(HttpHeaders.CONTENT_RANGE, BYTES + " " + start + "-" + end + "/" + contentLength);
+      headers.setContentLength(rangeLength);
+      return super.writeWith(DataBufferUtils.takeUntilByteCount(
+          DataBufferUtils.skipUntilByteCount(Flux.<DataBuffer>from(body), start), rangeLength));
+    }
+
+    private Mono<Void> discard(Publisher<? extends DataBuffer> body) {
+      // cancelling the body makes the gateway drop the upstream connection instead of downloading the file for nothing
+      return Flux.from(body)
+          .doOnNext(DataBufferUtils::release)
+          .take(1)
+          .then(setComplete());
+    }
+
+    private boolean isNotModified(HttpHeaders headers) {
+      try {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+          String etag = headers.getETag();
+          return etag != null && ifNoneMatch.stream().anyMatch(tag -> "*".equals(tag) || weakEtag(tag).equals(weakEtag(etag)));
+        }
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+      long ifModifiedSince = requestHeaders.getIfModifiedSince();
+      long lastModified = headers.getLastModified();
+      return ifModifiedSince >= 0 && lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private boolean isRangeApplicable(HttpHeaders headers) {
+      String ifRange = requestHeaders.getFirst(IF_RANGE);
+      if (ifRange == null) {
+        return true;
+      }
+      String etag = headers.getETag();
+      if (ifRange.startsWith("\"") || ifRange.startsWith(WEAK_PREFIX)) {
+        return etag != null && !etag.startsWith(WEAK_PREFIX) && ifRange.equals(etag);
+      }
+      return ifRange.equals(headers.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private HttpRange singleRange() {
+      try {
+        List<HttpRange> ranges = requestHeaders.getRange();
+        return ranges.size() == 1 ? ranges.get(0) : null;
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    private static String weakEtag(String etag) {
+      return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RefreshAheadCacheProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.cache.CachedResponse;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches small, rarely changing responses and refreshes them ahead of time. The first request of a key is proxied and its
+ * response kept; requests after refresh-after still get the kept response at once while it is refreshed in the background,
+ * and a failed refresh keeps the last good response until expire-after. The refresh calls the service directly, with the
+ * query of the request appended to the path of the service, so that it neither spends rate limit tokens of the route nor goes
+ * through its response caches; the route must forward to the path of the service itself.
+ * Publishes gateway.refresh-ahead.age, the age of the oldest kept response, and gateway.refresh-ahead.refreshes by outcome.
+ */
+@Component
+public class RefreshAheadCacheGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<RefreshAheadCacheGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(RefreshAheadCacheGatewayFilterFactory.class);
+  private static final String METRIC_PREFIX = "gateway.refresh-ahead";
+  private static final String LB_SCHEME = "lb://";
+  private final WebClient webClient;
+  private final MeterRegistry meterRegistry;
+
+  public RefreshAheadCacheGatewayFilterFactory(WebClient webClient, MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.webClient = webClient;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    return apply(config, Ticker.systemTicker());
+  }
+
+  GatewayFilter apply(Config config, Ticker ticker) {
+    if (!config.properties.isEnabled()) {
+      return (exchange, chain) -> chain.filter(exchange);
+    }
+    final Cache<String, CachedResponse> cache = cache(config, ticker).synchronous();
+    return new OrderedGatewayFilter((exchange, chain) -> {
+      ServerHttpRequest request = exchange.getRequest();
+      if (request.getMethod() != HttpMethod.GET) {
+        return chain.filter(exchange);
+      }
+      String key = ResponseCacheGatewayFilterFactory.cacheKey(request);
+      // getIfPresent starts the background refresh of entries older than refresh-after
+      CachedResponse cachedResponse = ResponseCacheGatewayFilterFactory.isNoCache(request) ? null : cache.getIfPresent(key);
+      if (cachedResponse != null) {
+        return ResponseCacheGatewayFilterFactory.writeCachedResponse(exchange, cachedResponse);
+      }
+      return chain.filter(exchange.mutate()
+          .response(new ResponseCacheGatewayFilterFactory.CachingResponseDecorator(exchange.getResponse(), cache, key,
+              config.properties.getMaxEntrySize().toBytes()))
+          .build());
+    }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  private AsyncLoadingCache<String, CachedResponse> cache(Config config, Ticker ticker) {
+    final RefreshAheadCacheProperties properties = config.properties;
+    final String serviceUri = serviceUri(config.service);
+    final Counter refreshed = refreshes(config.cacheName, "success");
+    final Counter failed = refreshes(config.cacheName, "failure");
+    AsyncLoadingCache<String, CachedResponse> cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxEntries())
+        .refreshAfterWrite(properties.getRefreshAfter())
+        .expireAfterWrite(properties.getExpireAfter())
+        .ticker(ticker)
+        // refreshes are non-blocking web client calls, there is nothing to hand over to the common pool
+        .executor(Runnable::run)
+        .recordStats()
+        // entries are put by the requests of the route, the loader only refreshes them
+        .buildAsync((key, executor) -> refresh(serviceUri, key, properties)
+            .doOnSuccess(response -> refreshed.increment())
+            .doOnError(error -> {
+              failed.increment();
+              log.warn("Refreshing {} failed, serving the response fetched before: {}", key, error.toString());
+            })
+            .toFuture());
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), config.cacheName);
+    Gauge.builder(METRIC_PREFIX + ".age", cache.synchronous(), RefreshAheadCacheGatewayFilterFactory::oldestAgeSeconds)
+        .description("Age of the oldest response kept by the refresh-ahead cache")
+        .tag("cache", config.cacheName)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    log.info("Refresh-ahead cache {} enabled, refresh after {}, expire after {}", config.cacheName,
+        properties.getRefreshAfter(), properties.getExpireAfter());
+    return cache;
+  }
+
+  private Mono<CachedResponse> refresh(String serviceUri, String key, RefreshAheadCacheProperties properties) {
+    return webClient.get()
+        .uri(UriComponentsBuilder.fromUriString(serviceUri)
+            .query(UriComponentsBuilder.fromUriString(key).build(true).getQuery())
+            .build(true)
+            .toUri())
+        .accept(MediaType.APPLICATION_JSON)
+        .exchangeToMono(response -> {
+          if (!HttpStatus.OK.equals(response.statusCode())) {
+            return response.createError();
+          }
+          return response.bodyToMono(byte[].class)
+              .defaultIfEmpty(new byte[0])
+              .map(body -> CachedResponse.of(response.statusCode(), response.headers().asHttpHeaders(), body));
+        })
+        .timeout(properties.getRefreshTimeout());
+  }
+
+  private static String serviceUri(ServiceProperties service) {
+    // the load-balanced web client resolves the host of an http URI as the service name
+    String uri = service.getUri().startsWith(LB_SCHEME)
+        ? "http://" + service.getUri().substring(LB_SCHEME.length())
+        : service.getUri();
+    return uri + service.getPath();
+  }
+
+  private static double oldestAgeSeconds(Cache<String, CachedResponse> cache) {
+    return cache.policy().expireAfterWrite()
+        .map(expiration -> cache.asMap().keySet().stream()
+            .mapToLong(key -> expiration.ageOf(key, TimeUnit.SECONDS).orElse(0L))
+            .max()
+            .orElse(0L))
+        .orElse(0L);
+  }
+
+  private Counter refreshes(String cacheName, String outcome) {
+    return Counter.builder(METRIC_PREFIX + ".refreshes")
+        .description("Background refreshes of the refresh-ahead cache")
+        .tag("cache", cacheName)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  public static class Config {
+    private final String cacheName;
+    private final RefreshAheadCacheProperties properties;
+    private final ServiceProperties service;
+
+    public Config(String cacheName, RefreshAheadCacheProperties properties, ServiceProperties service) {
+      this.cacheName = cacheName;
+      this.properties = properties;
+      this.service = service;
+    }
+  }
+}
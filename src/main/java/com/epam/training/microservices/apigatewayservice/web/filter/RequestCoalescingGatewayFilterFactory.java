@@ -0,0 +1,205 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CoalescingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Single-flight for idempotent GETs: while a request is on its way to the upstream, identical requests of the same route wait
+ * for it instead of sending their own. The first request leads, its response status, content headers and body chunks are
+ * replayed to the followers as they arrive, so a streamed body reaches all of them without being buffered first. Requests are
+ * identical when route, path, sorted query params and the Accept, Accept-Encoding and Authorization headers match; range and
+ * conditional requests are never coalesced. Only responses with a {@code Content-Length} of at most {@code max-body-size}
+ * are shared, the chunks are kept for late followers until the leader ends. When the leader ends without such a response,
+ * for example rejected by the rate limiter or with a large download, its followers send their own request.
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+  public static final String COALESCED_HEADER = "X-Gateway-Coalesced";
+  private static final List<String> KEY_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+      HttpHeaders.AUTHORIZATION);
+  private static final List<String> UNCOALESCABLE_HEADERS = List.of(HttpHeaders.RANGE, HttpHeaders.IF_RANGE,
+      HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_UNMODIFIED_SINCE);
+  private static final List<String> SHARED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH,
+      HttpHeaders.CONTENT_ENCODING, HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.ETAG,
+      HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, HttpHeaders.EXPIRES, HttpHeaders.ACCEPT_RANGES, HttpHeaders.VARY);
+  private static final Head ABANDONED = new Head(null, null, null);
+  private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+  private final long maxBodySize;
+  private final Counter leaders;
+  private final Counter followers;
+  private final Counter fallbacks;
+
+  public RequestCoalescingGatewayFilterFactory(CoalescingProperties properties, MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.maxBodySize = properties.getMaxBodySize().toBytes();
+    this.leaders = requests(meterRegistry, "leader");
+    this.followers = requests(meterRegistry, "follower");
+    this.fallbacks = requests(meterRegistry, "fallback");
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    // wraps the response before NettyWriteResponseFilter writes the upstream body to it
+    return new OrderedGatewayFilter((exchange, chain) -> {
+      ServerHttpRequest request = exchange.getRequest();
+      if (!isCoalescable(request)) {
+        return chain.filter(exchange);
+      }
+      final String key = key(exchange);
+      final Flight flight = new Flight();
+      final Flight leading = flights.putIfAbsent(key, flight);
+      if (leading != null) {
+        followers.increment();
+        return follow(leading, exchange, chain);
+      }
+      leaders.increment();
+      return chain.filter(exchange.mutate().response(new LeaderResponseDecorator(exchange.getResponse(), flight, maxBodySize)).build())
+          .doFinally(signalType -> {
+            flights.remove(key, flight);
+            flight.abandon();
+          });
+    }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  private Mono<Void> follow(Flight flight, ServerWebExchange exchange, GatewayFilterChain chain) {
+    return flight.head.asMono().flatMap(head -> {
+      if (head == ABANDONED) {
+        fallbacks.increment();
+        return chain.filter(exchange);
+      }
+      ServerHttpResponse response = exchange.getResponse();
+      response.setStatusCode(head.status());
+      response.getHeaders().putAll(head.headers());
+      response.getHeaders().set(COALESCED_HEADER, "true");
+      return response.writeWith(head.body().map(content -> response.bufferFactory().wrap(content)));
+    });
+  }
+
+  private static boolean isCoalescable(ServerHttpRequest request) {
+    if (request.getMethod() != HttpMethod.GET) {
+      return false;
+    }
+    HttpHeaders headers = request.getHeaders();
+    for (String name : UNCOALESCABLE_HEADERS) {
+      if (headers.containsKey(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String key(ServerWebExchange exchange) {
+    ServerHttpRequest request = exchange.getRequest();
+    Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    StringBuilder key = new StringBuilder(128)
+        .append(route == null ? "" : route.getId())
+        .append(' ')
+        .append(request.getPath().value());
+    char separator = '?';
+    for (Map.Entry<String, List<String>> param : new TreeMap<>(request.getQueryParams()).entrySet()) {
+      for (String value : param.getValue()) {
+        key.append(separator).append(param.getKey()).append('=').append(value);
+        separator = '&';
+      }
+    }
+    for (String name : KEY_HEADERS) {
+      key.append('\n').append(request.getHeaders().getOrEmpty(name));
+    }
+    return key.toString();
+  }
+
+  private static Counter requests(MeterRegistry meterRegistry, String role) {
+    return Counter.builder("gateway.request-coalescing.requests")
+        .description("Coalescable requests by their role in the shared upstream exchange")
+        .tag("role", role)
+        .register(meterRegistry);
+  }
+
+  public static class Config {
+  }
+
+  private record Head(HttpStatusCode status, HttpHeaders headers, Flux<byte[]> body) {
+  }
+
+  private static class Flight {
+    private final Sinks.One<Head> head = Sinks.one();
+
+    void publish(Head value) {
+      head.tryEmitValue(value);
+    }
+
+    void abandon() {
+      head.tryEmitValue(ABANDONED);
+    }
+  }
+
+  private static class LeaderResponseDecorator extends ServerHttpResponseDecorator {
+    private final Flight flight;
+    private final long maxBodySize;
+
+    LeaderResponseDecorator(ServerHttpResponse delegate, Flight flight, long maxBodySize) {
+      super(delegate);
+      this.flight = flight;
+      this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      long contentLength = getHeaders().getContentLength();
+      if (contentLength < 0 || contentLength > maxBodySize) {
+        // a body of unknown or large size is not held in memory for the followers, they send their own request
+        flight.abandon();
+        return super.writeWith(body);
+      }
+      // replays the chunks to late followers and keeps reading the upstream for them when the leading client goes away
+      Flux<byte[]> sharedBody = Flux.from(body)
+          .map(buffer -> {
+            byte[] content = new byte[buffer.readableByteCount()];
+            buffer.read(content);
+            DataBufferUtils.release(buffer);
+            return content;
+          })
+          .cache();
+      flight.publish(new Head(getStatusCode(), sharedHeaders(getHeaders()), sharedBody));
+      return super.writeWith(sharedBody.map(content -> bufferFactory().wrap(content)));
+    }
+
+    private static HttpHeaders sharedHeaders(HttpHeaders responseHeaders) {
+      HttpHeaders headers = new HttpHeaders();
+      for (String name : SHARED_HEADERS) {
+        List<String> values = responseHeaders.get(name);
+        if (values != null) {
+          headers.put(name, values);
+        }
+      }
+      return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+  }
+}
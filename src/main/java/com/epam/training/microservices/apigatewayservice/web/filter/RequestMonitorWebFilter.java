@@ -2,28 +2,110 @@ package com.epam.training.microservices.apigatewayservice.web.filter;
 
 import static java.util.Optional.ofNullable;
 
+import com.epam.training.microservices.apigatewayservice.configuration.RequestMonitorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+/**
+ * Records the latency of every request into the {@code gateway.route.latency} timer, tagged by gateway route id, HTTP method
+ * and status class. Methods other than the standard ones are tagged {@code OTHER}, so clients cannot add timers at will.
+ * Timers publish a percentile histogram, so percentiles can be aggregated across instances. Logging a line per request is off
+ * by default and, when enabled, sampled.
+ */
 @Component
 public class RequestMonitorWebFilter implements WebFilter {
+  private static final String METRIC_NAME = "gateway.route.latency";
+  private static final String NO_ROUTE = "none";
+  private static final String OTHER_METHOD = "OTHER";
+  private static final Set<HttpMethod> STANDARD_METHODS = Set.of(HttpMethod.values());
+  private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
   private final Logger log = LoggerFactory.getLogger(RequestMonitorWebFilter.class);
+  private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final RequestMonitorProperties properties;
+  private final double[] percentiles;
+
+  public RequestMonitorWebFilter(MeterRegistry meterRegistry, RequestMonitorProperties properties) {
+    this.meterRegistry = meterRegistry;
+    this.properties = properties;
+    this.percentiles = properties.getPercentiles().stream().mapToDouble(Double::doubleValue).toArray();
+  }
 
   @Override
   public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
-    final long startTime = System.currentTimeMillis();
+    final long startTime = System.nanoTime();
     return chain.filter(exchange)
         .doFinally(signalType -> {
-          final long endTime = System.currentTimeMillis();
-          final long executionTime = endTime - startTime;
-          final List<String> traceIds = ofNullable(exchange.getResponse().getHeaders().get("traceId")).orElseGet(List::of);
-          log.info("Request completed, execution time: {}, log prefix: {}, trace id: {}.", executionTime, exchange.getLogPrefix(), traceIds);
+          final long executionTime = System.nanoTime() - startTime;
+          final TimerKey key = new TimerKey(routeId(exchange), method(exchange),
+              statusClass(exchange, signalType));
+          timers.computeIfAbsent(key, this::timer).record(executionTime, TimeUnit.NANOSECONDS);
+          if (shouldLog()) {
+            final List<String> traceIds = ofNullable(exchange.getResponse().getHeaders().get("traceId")).orElseGet(List::of);
+            log.info("Request completed, route: {}, execution time: {} ms, log prefix: {}, trace id: {}.", key.routeId(),
+                TimeUnit.NANOSECONDS.toMillis(executionTime), exchange.getLogPrefix(), traceIds);
+          }
         });
   }
+
+  private Timer timer(TimerKey key) {
+    return Timer.builder(METRIC_NAME)
+        .description("Latency of the requests handled by the gateway")
+        .tag("routeId", key.routeId())
+        .tag("method", key.method())
+        .tag("status", key.statusClass())
+        .publishPercentileHistogram()
+        .publishPercentiles(percentiles)
+        .minimumExpectedValue(properties.getMinimumExpectedLatency())
+        .maximumExpectedValue(properties.getMaximumExpectedLatency())
+        .register(meterRegistry);
+  }
+
+  private boolean shouldLog() {
+    return properties.isLogEnabled() && log.isInfoEnabled()
+        && ThreadLocalRandom.current().nextDouble() < properties.getLogSampleRate();
+  }
+
+  private static String routeId(ServerWebExchange exchange) {
+    final Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    return route == null ? NO_ROUTE : route.getId();
+  }
+
+  private static String method(ServerWebExchange exchange) {
+    final HttpMethod method = exchange.getRequest().getMethod();
+    return STANDARD_METHODS.contains(method) ? method.name() : OTHER_METHOD;
+  }
+
+  private static String statusClass(ServerWebExchange exchange, SignalType signalType) {
+    if (signalType == SignalType.CANCEL) {
+      return "cancelled";
+    }
+    final HttpStatusCode status = exchange.getResponse().getStatusCode();
+    if (status == null) {
+      return "unknown";
+    }
+    final int series = status.value() / 100;
+    return series >= 1 && series <= STATUS_CLASSES.length ? STATUS_CLASSES[series - 1] : "unknown";
+  }
+
+  private record TimerKey(String routeId, String method, String statusClass) {
+  }
 }
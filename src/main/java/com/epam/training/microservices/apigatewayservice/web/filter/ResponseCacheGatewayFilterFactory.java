@@ -0,0 +1,132 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.web.cache.CachedResponse;
+import com.epam.training.microservices.apigatewayservice.web.cache.ResponseCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import java.util.Locale;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+  public static final String CACHE_STATUS_HEADER = "X-Gateway-Cache";
+  private final ResponseCacheManager responseCacheManager;
+
+  public ResponseCacheGatewayFilterFactory(ResponseCacheManager responseCacheManager) {
+    super(Config.class);
+    this.responseCacheManager = responseCacheManager;
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    // runs ahead of the rate limiter and the load balancer, a hit is answered without touching either of them
+    return new OrderedGatewayFilter((exchange, chain) -> {
+      Cache<String, CachedResponse> cache = responseCacheManager.getCache(config.cacheName);
+      ServerHttpRequest request = exchange.getRequest();
+      if (cache == null || request.getMethod() != HttpMethod.GET) {
+        return chain.filter(exchange);
+      }
+      String key = cacheKey(request);
+      CachedResponse cachedResponse = isNoCache(request) ? null : cache.getIfPresent(key);
+      if (cachedResponse != null) {
+        return writeCachedResponse(exchange, cachedResponse);
+      }
+      return chain.filter(exchange.mutate()
+          .response(new CachingResponseDecorator(exchange.getResponse(), cache, key,
+              responseCacheManager.getMaxEntrySize(config.cacheName)))
+          .build());
+    }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+  }
+
+  public static String cacheKey(ServerHttpRequest request) {
+    String query = request.getURI().getRawQuery();
+    String path = request.getURI().getRawPath();
+    return query == null ? path : path + '?' + query;
+  }
+
+  /**
+   * Whether a response may be kept and served to other clients: not when the upstream forbids storing it, keeps it to one
+   * client, or varies it by request headers the cache key does not cover.
+   */
+  public static boolean isCacheable(HttpHeaders headers) {
+    String cacheControl = headers.getCacheControl();
+    if (cacheControl != null) {
+      String directives = cacheControl.toLowerCase(Locale.ROOT);
+      if (directives.contains("no-store") || directives.contains("private")) {
+        return false;
+      }
+    }
+    return !headers.containsKey(HttpHeaders.VARY);
+  }
+
+  static boolean isNoCache(ServerHttpRequest request) {
+    String cacheControl = request.getHeaders().getCacheControl();
+    return cacheControl != null && cacheControl.contains("no-cache");
+  }
+
+  static Mono<Void> writeCachedResponse(ServerWebExchange exchange, CachedResponse cachedResponse) {
+    ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(cachedResponse.status());
+    response.getHeaders().putAll(cachedResponse.headers());
+    response.getHeaders().setContentLength(cachedResponse.body().length);
+    response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+    return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cachedResponse.body())));
+  }
+
+  public static class Config {
+    private final String cacheName;
+
+    public Config(String cacheName) {
+      this.cacheName = cacheName;
+    }
+  }
+
+  /**
+   * Keeps a cacheable 200 response while it is written. Only responses whose Content-Length is at most the max entry size are
+   * buffered, a response of unknown or larger size is passed through without being held in memory.
+   */
+  static class CachingResponseDecorator extends ServerHttpResponseDecorator {
+    private final Cache<String, CachedResponse> cache;
+    private final String key;
+    private final long maxEntrySize;
+
+    CachingResponseDecorator(ServerHttpResponse delegate, Cache<String, CachedResponse> cache, String key, long maxEntrySize) {
+      super(delegate);
+      this.cache = cache;
+      this.key = key;
+      this.maxEntrySize = maxEntrySize;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      long contentLength = getHeaders().getContentLength();
+      if (!HttpStatus.OK.equals(getStatusCode()) || !isCacheable(getHeaders()) || contentLength < 0
+          || contentLength > maxEntrySize) {
+        return super.writeWith(body);
+      }
+      getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+      return super.writeWith(DataBufferUtils.join(body)
+          .map(joined -> {
+            byte[] content = new byte[joined.readableByteCount()];
+            joined.read(content);
+            DataBufferUtils.release(joined);
+            cache.put(key, CachedResponse.of(getStatusCode(), getHeaders(), content));
+            return bufferFactory().wrap(content);
+          }));
+    }
+  }
+}
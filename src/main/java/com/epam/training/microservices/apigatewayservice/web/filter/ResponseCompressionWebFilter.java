@@ -0,0 +1,245 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CompressionProperties;
+import com.epam.training.microservices.apigatewayservice.web.support.StreamingCompressor;
+import com.epam.training.microservices.apigatewayservice.web.support.StreamingCompressor.Encoding;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compresses responses with gzip or deflate, whichever the client prefers in its {@code Accept-Encoding}, gzip on a tie.
+ * Only responses of the {@code mime-types} of at least {@code min-response-size} are compressed, never ones already encoded
+ * by the service, partial content or responses written with a flush per element like event streams. Without a
+ * {@code Content-Length} the body is held back until it reaches the minimum size, then compressed buffer by buffer as it
+ * streams. The bytes compressed, the bytes saved and the time spent compressing are counted per encoding.
+ */
+@Component
+public class ResponseCompressionWebFilter implements WebFilter {
+  private final CompressionProperties properties;
+  private final List<MimeType> mimeTypes;
+  private final long minResponseSize;
+  private final Map<Encoding, Meters> meters = new EnumMap<>(Encoding.class);
+
+  public ResponseCompressionWebFilter(CompressionProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.mimeTypes = properties.getMimeTypes().stream().map(MimeTypeUtils::parseMimeType).toList();
+    this.minResponseSize = properties.getMinResponseSize().toBytes();
+    for (Encoding encoding : Encoding.values()) {
+      meters.put(encoding, new Meters(encoding, meterRegistry));
+    }
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!properties.isEnabled() || exchange.getRequest().getMethod() == HttpMethod.HEAD) {
+      return chain.filter(exchange);
+    }
+    Encoding encoding = negotiate(exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT_ENCODING));
+    if (encoding == null) {
+      return chain.filter(exchange);
+    }
+    return chain.filter(exchange.mutate().response(new CompressingResponse(exchange.getResponse(), encoding)).build());
+  }
+
+  /**
+   * Returns the encoding with the highest quality value, none when the client takes neither gzip nor deflate.
+   */
+  static Encoding negotiate(List<String> acceptEncodings) {
+    if (acceptEncodings == null) {
+      return null;
+    }
+    double gzip = 0;
+    double deflate = 0;
+    double any = 0;
+    boolean gzipListed = false;
+    boolean deflateListed = false;
+    for (String header : acceptEncodings) {
+      for (String coding : StringUtils.tokenizeToStringArray(header, ",")) {
+        String[] parts = StringUtils.tokenizeToStringArray(coding, ";");
+        if (parts.length == 0) {
+          continue;
+        }
+        double quality = quality(parts);
+        switch (parts[0].toLowerCase()) {
+          case "gzip", "x-gzip" -> {
+            gzip = Math.max(gzip, quality);
+            gzipListed = true;
+          }
+          case "deflate" -> {
+            deflate = Math.max(deflate, quality);
+            deflateListed = true;
+          }
+          case "*" -> any = Math.max(any, quality);
+          default -> {
+          }
+        }
+      }
+    }
+    // a coding the client does not name is acceptable with the quality of *
+    gzip = gzipListed ? gzip : any;
+    deflate = deflateListed ? deflate : any;
+    if (gzip > 0 && gzip >= deflate) {
+      return Encoding.GZIP;
+    }
+    return deflate > 0 ? Encoding.DEFLATE : null;
+  }
+
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private boolean isCompressible(HttpHeaders headers, HttpStatusCode status) {
+    if (status != null && (status.value() == HttpStatus.NO_CONTENT.value() || status.value() == HttpStatus.NOT_MODIFIED.value()
+        || status.value() == HttpStatus.PARTIAL_CONTENT.value())) {
+      return false;
+    }
+    if (headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(HttpHeaders.CONTENT_RANGE)) {
+      return false;
+    }
+    MediaType contentType;
+    try {
+      contentType = headers.getContentType();
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    if (contentType == null) {
+      return false;
+    }
+    for (MimeType mimeType : mimeTypes) {
+      if (mimeType.includes(contentType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static long size(List<? extends DataBuffer> buffers) {
+    long size = 0;
+    for (DataBuffer buffer : buffers) {
+      size += buffer.readableByteCount();
+    }
+    return size;
+  }
+
+  private final class CompressingResponse extends ServerHttpResponseDecorator {
+    private final Encoding encoding;
+
+    CompressingResponse(ServerHttpResponse delegate, Encoding encoding) {
+      super(delegate);
+      this.encoding = encoding;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+      HttpHeaders headers = getHeaders();
+      if (!isCompressible(headers, getStatusCode())) {
+        return getDelegate().writeWith(body);
+      }
+      // the representation depends on the Accept-Encoding whether this one is compressed or not
+      if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      }
+      long contentLength = headers.getContentLength();
+      if (contentLength >= 0) {
+        return contentLength < minResponseSize
+            ? getDelegate().writeWith(body)
+            : getDelegate().writeWith(compress(Flux.from(body)));
+      }
+      final AtomicLong received = new AtomicLong();
+      return Flux.from(body)
+          .bufferUntil(buffer -> received.addAndGet(buffer.readableByteCount()) >= minResponseSize)
+          .switchOnFirst((first, parts) -> {
+            Flux<DataBuffer> buffers = parts.flatMapIterable(Function.identity());
+            // the first part ends below the minimum size only when it is the whole body
+            boolean large = first.hasValue() && size(first.get()) >= minResponseSize;
+            return large ? getDelegate().writeWith(compress(buffers)) : getDelegate().writeWith(buffers);
+          })
+          .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+          .then();
+    }
+
+    private Flux<DataBuffer> compress(Flux<DataBuffer> body) {
+      HttpHeaders headers = getHeaders();
+      headers.remove(HttpHeaders.CONTENT_LENGTH);
+      headers.remove(HttpHeaders.ACCEPT_RANGES);
+      headers.set(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+      String eTag = headers.getETag();
+      if (eTag != null && !eTag.startsWith("W/")) {
+        headers.setETag("W/" + eTag);
+      }
+      final StreamingCompressor compressor = new StreamingCompressor(encoding, properties.getLevel());
+      final DataBufferFactory bufferFactory = bufferFactory();
+      return body
+          .map(buffer -> compressor.compress(buffer, bufferFactory))
+          .concatWith(Mono.fromSupplier(() -> compressor.finish(bufferFactory)))
+          .doOnComplete(() -> meters.get(encoding).record(compressor))
+          .doFinally(signalType -> compressor.end());
+    }
+  }
+
+  private static final class Meters {
+    private final Counter inputBytes;
+    private final Counter savedBytes;
+    private final Timer time;
+
+    Meters(Encoding encoding, MeterRegistry meterRegistry) {
+      this.inputBytes = Counter.builder("gateway.compression.input")
+          .description("Bytes of response bodies compressed")
+          .baseUnit("bytes")
+          .tag("encoding", encoding.getToken())
+          .register(meterRegistry);
+      this.savedBytes = Counter.builder("gateway.compression.saved")
+          .description("Bytes saved by compressing response bodies")
+          .baseUnit("bytes")
+          .tag("encoding", encoding.getToken())
+          .register(meterRegistry);
+      this.time = Timer.builder("gateway.compression.time")
+          .description("Time spent compressing a response body")
+          .tag("encoding", encoding.getToken())
+          .register(meterRegistry);
+    }
+
+    void record(StreamingCompressor compressor) {
+      inputBytes.increment(compressor.getInputBytes());
+      savedBytes.increment(Math.max(0, compressor.getInputBytes() - compressor.getOutputBytes()));
+      time.record(compressor.getCompressionNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+import com.epam.training.microservices.apigatewayservice.configuration.Http2Properties;
+import com.epam.training.microservices.apigatewayservice.configuration.PoolProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.router.Router;
+import io.netty.channel.ChannelOption;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Routes the requests of every downstream service through a connection pool of its own, so that a slow service exhausts only
+ * its own connections. Replaces the default routing filter, disabled with
+ * {@code spring.cloud.gateway.global-filter.netty-routing.enabled=false}; routes without a known service fall back to the
+ * shared gateway client. The clients of the pools are set up like the shared one, from the spring.cloud.gateway.httpclient
+ * properties (ssl, proxy, timeouts, header size) and the {@link HttpClientCustomizer} beans. Pools publish the
+ * reactor.netty.connection.provider meters tagged with their name, among them the active, idle and pending connections and
+ * the pending connection acquire time.
+ * <p>
+ * With HTTP/2 enabled for a service its requests are multiplexed, up to {@code http2.max-concurrent-streams} per connection,
+ * h2c for cleartext instances and h2 for TLS ones.
+ */
+@Component
+public class ServiceNettyRoutingFilter extends NettyRoutingFilter implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(ServiceNettyRoutingFilter.class);
+  private final Map<String, ConnectionProvider> connectionProviders = new HashMap<>();
+  private final Map<String, ServiceHttpClients> httpClients = new HashMap<>();
+
+  public ServiceNettyRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+      HttpClientProperties properties, ServerProperties serverProperties,
+      ObjectProvider<List<HttpClientCustomizer>> customizersProvider, List<ServiceProperties> services) {
+    super(httpClient, headersFiltersProvider, properties);
+    List<HttpClientCustomizer> customizers = customizersProvider.getIfAvailable(ArrayList::new);
+    for (ServiceProperties service : services) {
+      ConnectionProvider connectionProvider = connectionProvider(service.getName(), service.getPool(), service.getHttp2());
+      connectionProviders.put(service.getName(), connectionProvider);
+      HttpClient serviceHttpClient = new ServiceHttpClientFactory(properties,
+          serverProperties(serverProperties, service.getHttp2()), customizers, connectionProvider).build();
+      httpClients.put(service.getName(), httpClients(serviceHttpClient, service.getHttp2()));
+    }
+  }
+
+  @Override
+  protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+    ServiceHttpClients serviceHttpClients = httpClients.get(route.getMetadata().get(Router.SERVICE_METADATA));
+    if (serviceHttpClients == null) {
+      return super.getHttpClient(route, exchange);
+    }
+    URI requestUrl = exchange.getRequiredAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+    HttpClient httpClient = "https".equals(requestUrl.getScheme()) ? serviceHttpClients.secure() : serviceHttpClients.cleartext();
+    Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+    if (connectTimeout != null) {
+      return httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+    }
+    return httpClient;
+  }
+
+  private static ConnectionProvider connectionProvider(String serviceName, PoolProperties pool, Http2Properties http2) {
+    log.info("Connection pool of {}: http2 {}, max connections {}, max pending acquires {}", serviceName, http2.isEnabled(),
+        pool.getMaxConnections(), pool.getPendingAcquireMaxCount());
+    ConnectionProvider.Builder builder = ConnectionProvider.builder("gateway-" + serviceName.toLowerCase(Locale.ROOT))
+        .maxConnections(pool.getMaxConnections())
+        .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+        .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+        .maxIdleTime(pool.getMaxIdleTime())
+        .maxLifeTime(pool.getMaxLifeTime())
+        .evictInBackground(pool.getEvictionInterval())
+        .metrics(true);
+    if (http2.isEnabled()) {
+      // the HTTP/2 pool holds the connections of instances staying on HTTP/1.1 as well, they keep max-connections, an
+      // HTTP/2 instance only opens another connection when max-concurrent-streams are in flight on each of its connections
+      builder.allocationStrategy(Http2AllocationStrategy.builder()
+          .maxConnections(pool.getMaxConnections())
+          .maxConcurrentStreams(http2.getMaxConcurrentStreams())
+          .build());
+    }
+    return builder.build();
+  }
+
+  private static ServerProperties serverProperties(ServerProperties serverProperties, Http2Properties http2) {
+    if (!http2.isEnabled()) {
+      return serverProperties;
+    }
+    // the shared client negotiates h2 over TLS only when the server speaks HTTP/2, a service with HTTP/2 needs it either way
+    ServerProperties http2ServerProperties = new ServerProperties();
+    http2ServerProperties.getHttp2().setEnabled(true);
+    return http2ServerProperties;
+  }
+
+  private static ServiceHttpClients httpClients(HttpClient httpClient, Http2Properties http2) {
+    if (!http2.isEnabled()) {
+      return new ServiceHttpClients(httpClient, httpClient);
+    }
+    HttpClient cleartext = http2.isPriorKnowledge()
+        ? httpClient.protocol(HttpProtocol.H2C)
+        : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    return new ServiceHttpClients(cleartext, httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11));
+  }
+
+  @Override
+  public void destroy() {
+    connectionProviders.values().forEach(ConnectionProvider::dispose);
+  }
+
+  private record ServiceHttpClients(HttpClient cleartext, HttpClient secure) {
+  }
+
+  /**
+   * Builds a client the way the shared gateway client is built, over the connection pool of a service.
+   */
+  private static class ServiceHttpClientFactory extends HttpClientFactory {
+    private final ConnectionProvider connectionProvider;
+
+    ServiceHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+        List<HttpClientCustomizer> customizers, ConnectionProvider connectionProvider) {
+      super(properties, serverProperties, new HttpClientSslConfigurer(properties.getSsl(), serverProperties), customizers);
+      this.connectionProvider = connectionProvider;
+    }
+
+    HttpClient build() {
+      return createInstance();
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+      return connectionProvider;
+    }
+  }
+}
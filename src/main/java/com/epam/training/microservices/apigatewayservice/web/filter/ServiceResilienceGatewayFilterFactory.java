@@ -0,0 +1,163 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.BulkheadProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.CircuitBreakerProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker and bulkhead per downstream service, shared by all routes of the service. An open circuit or a full bulkhead
+ * fails the request right away with 503 instead of letting it queue up behind a degraded service. Upstream 5xx responses
+ * count as failed calls next to connection errors and timeouts. Calls the gateway makes to a service itself, outside of its
+ * routes, go through the same ones with {@link #protect}. Besides the resilience4j meters, state transitions are counted as
+ * gateway.circuit-breaker.transitions.
+ */
+@Component
+public class ServiceResilienceGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<ServiceResilienceGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(ServiceResilienceGatewayFilterFactory.class);
+  private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+  private final BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+  private final MeterRegistry meterRegistry;
+
+  public ServiceResilienceGatewayFilterFactory(MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.meterRegistry = meterRegistry;
+    TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+    TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    circuitBreakerRegistry.getEventPublisher().onEntryAdded(event -> countTransitions(event.getAddedEntry()));
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    final ServiceProperties service = config.service;
+    final CircuitBreaker circuitBreaker = service.getCircuitBreaker().isEnabled() ? circuitBreaker(service) : null;
+    final Bulkhead bulkhead = service.getBulkhead().isEnabled() ? bulkhead(service) : null;
+    return (exchange, chain) -> protect(service, circuitBreaker, bulkhead, Mono.defer(() -> chain.filter(exchange)),
+        done -> exchange.getResponse().getStatusCode());
+  }
+
+  /**
+   * Runs a call to the service the gateway makes itself, outside of its routes, through the circuit breaker and bulkhead of
+   * the service. {@code status} tells the status of the response the call completed with.
+   */
+  public <T> Mono<T> protect(ServiceProperties service, Mono<T> call, Function<T, HttpStatusCode> status) {
+    return protect(service, service.getCircuitBreaker().isEnabled() ? circuitBreaker(service) : null,
+        service.getBulkhead().isEnabled() ? bulkhead(service) : null, call, status);
+  }
+
+  private static <T> Mono<T> protect(ServiceProperties service, CircuitBreaker circuitBreaker, Bulkhead bulkhead, Mono<T> call,
+      Function<T, HttpStatusCode> status) {
+    return Mono.defer(() -> {
+      if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+        return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+            service.getName() + " is unavailable, its circuit breaker is " + circuitBreaker.getState()));
+      }
+      if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+        if (circuitBreaker != null) {
+          circuitBreaker.releasePermission();
+        }
+        return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+            service.getName() + " has too many requests in progress"));
+      }
+      final long startTime = System.nanoTime();
+      return call
+          .doOnSuccess(result -> {
+            if (circuitBreaker != null) {
+              long duration = System.nanoTime() - startTime;
+              HttpStatusCode statusCode = status.apply(result);
+              if (statusCode != null && statusCode.is5xxServerError()) {
+                circuitBreaker.onError(duration, TimeUnit.NANOSECONDS, new UpstreamServerErrorException(statusCode));
+              } else {
+                circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+              }
+            }
+          })
+          .doOnError(error -> {
+            if (circuitBreaker != null) {
+              circuitBreaker.onError(System.nanoTime() - startTime, TimeUnit.NANOSECONDS, error);
+            }
+          })
+          .doOnCancel(() -> {
+            if (circuitBreaker != null) {
+              circuitBreaker.releasePermission();
+            }
+          })
+          .doFinally(signalType -> {
+            if (bulkhead != null) {
+              bulkhead.onComplete();
+            }
+          });
+    });
+  }
+
+  private CircuitBreaker circuitBreaker(ServiceProperties service) {
+    CircuitBreakerProperties properties = service.getCircuitBreaker();
+    return circuitBreakerRegistry.circuitBreaker(service.getName(), () -> CircuitBreakerConfig.custom()
+        .failureRateThreshold(properties.getFailureRateThreshold())
+        .slowCallRateThreshold(properties.getSlowCallRateThreshold())
+        .slowCallDurationThreshold(properties.getSlowCallDurationThreshold())
+        .slidingWindowSize(properties.getSlidingWindowSize())
+        .minimumNumberOfCalls(properties.getMinimumNumberOfCalls())
+        .waitDurationInOpenState(properties.getWaitDurationInOpenState())
+        .permittedNumberOfCallsInHalfOpenState(properties.getPermittedCallsInHalfOpenState())
+        .build());
+  }
+
+  private void countTransitions(CircuitBreaker circuitBreaker) {
+    circuitBreaker.getEventPublisher().onStateTransition(event -> {
+      log.warn("Circuit breaker of {}: {}", event.getCircuitBreakerName(), event.getStateTransition());
+      Counter.builder("gateway.circuit-breaker.transitions")
+          .description("State transitions of the downstream service circuit breakers")
+          .tag("name", event.getCircuitBreakerName())
+          .tag("from", event.getStateTransition().getFromState().name())
+          .tag("to", event.getStateTransition().getToState().name())
+          .register(meterRegistry)
+          .increment();
+    });
+  }
+
+  private Bulkhead bulkhead(ServiceProperties service) {
+    BulkheadProperties properties = service.getBulkhead();
+    return bulkheadRegistry.bulkhead(service.getName(), () -> BulkheadConfig.custom()
+        .maxConcurrentCalls(properties.getMaxConcurrentCalls())
+        // waiting for a permission would block the event loop
+        .maxWaitDuration(Duration.ZERO)
+        .build());
+  }
+
+  public static class Config {
+    private final ServiceProperties service;
+
+    public Config(ServiceProperties service) {
+      this.service = service;
+    }
+  }
+
+  private static class UpstreamServerErrorException extends RuntimeException {
+    UpstreamServerErrorException(HttpStatusCode status) {
+      super("Upstream responded with " + status, null, false, false);
+    }
+  }
+}
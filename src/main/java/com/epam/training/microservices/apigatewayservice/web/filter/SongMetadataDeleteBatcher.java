@@ -0,0 +1,95 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CascadeDeleteProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Deletes song metadata by resource ids in chunks of a bounded size with a bounded number of requests in flight, instead of a
+ * single request carrying every id in its query string. The requests go straight to the song service, not through the gateway
+ * routes where their rate limit would be charged to the gateway itself. A failed chunk fails the whole delete with 502, the
+ * resources are gone at that point but their song metadata is not, which the client has to know about.
+ */
+@Component
+public class SongMetadataDeleteBatcher {
+  private static final Logger log = LoggerFactory.getLogger(SongMetadataDeleteBatcher.class);
+  private static final String METRIC_CHUNK = "gateway.cascade-delete.chunk";
+  private static final ParameterizedTypeReference<List<Map<String, Object>>> SONG_RECORDS_TYPE =
+      new ParameterizedTypeReference<>() {};
+  private final WebClient webClient;
+  private final CascadeDeleteProperties properties;
+  private final Timer successTimer;
+  private final Timer failureTimer;
+
+  public SongMetadataDeleteBatcher(WebClient webClient, CascadeDeleteProperties properties, MeterRegistry meterRegistry) {
+    this.webClient = webClient;
+    this.properties = properties;
+    this.successTimer = chunkTimer(meterRegistry, "success");
+    this.failureTimer = chunkTimer(meterRegistry, "failure");
+  }
+
+  public Mono<List<Map<String, Object>>> delete(String uri, String queryParam, List<String> resourceIds) {
+    return Flux.fromIterable(chunk(resourceIds, properties.getChunkSize()))
+        .flatMap(chunk -> deleteChunk(uri, queryParam, chunk), properties.getMaxConcurrency())
+        .<List<Map<String, Object>>>collect(ArrayList::new, List::addAll);
+  }
+
+  public Mono<List<Map<String, Object>>> deleteChunk(String uri, String queryParam, List<String> resourceIds) {
+    final String joinedIds = String.join(",", resourceIds);
+    return Mono.defer(() -> {
+      final long startTime = System.nanoTime();
+      log.info("Sending a request to delete song records by {} resource ids '{}'", resourceIds.size(), joinedIds);
+      return webClient.delete()
+          .uri(uri, uriBuilder -> uriBuilder
+              .queryParam(queryParam, joinedIds)
+              .build())
+          .accept(MediaType.APPLICATION_JSON)
+          .exchangeToMono(clientResponse -> clientResponse.statusCode().isError()
+              ? clientResponse.<List<Map<String, Object>>>createError()
+              : clientResponse.bodyToMono(SONG_RECORDS_TYPE))
+          .defaultIfEmpty(Collections.emptyList())
+          .doOnSuccess(songRecords -> {
+            long elapsed = System.nanoTime() - startTime;
+            successTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.debug("Deleted {} song records for a chunk of {} resource ids in {} ms", songRecords.size(), resourceIds.size(),
+                elapsed / 1_000_000);
+          })
+          .onErrorMap(error -> {
+            failureTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            log.warn("Failed to delete song records for a chunk of {} resource ids '{}'", resourceIds.size(), joinedIds, error);
+            return new ResponseStatusException(HttpStatus.BAD_GATEWAY,
+                "Resources " + joinedIds + " are deleted but deleting their song metadata failed", error);
+          });
+    });
+  }
+
+  private static List<List<String>> chunk(List<String> values, int chunkSize) {
+    List<List<String>> chunks = new ArrayList<>((values.size() + chunkSize - 1) / chunkSize);
+    for (int from = 0; from < values.size(); from += chunkSize) {
+      chunks.add(values.subList(from, Math.min(from + chunkSize, values.size())));
+    }
+    return chunks;
+  }
+
+  private static Timer chunkTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder(METRIC_CHUNK)
+        .description("Latency of the song metadata delete requests sent per chunk of deleted resources")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,63 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import com.epam.training.microservices.apigatewayservice.configuration.CascadeDeleteProperties;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Attaches the deleted song records to the deleted resource records they belong to. Small batches are merged right on the
+ * calling event loop thread, large ones are moved to a dedicated bounded scheduler so that they neither stall the event loop
+ * nor compete for the JVM wide common pool.
+ */
+@Component
+public class SongMetadataMerger implements DisposableBean {
+  private static final Logger log = LoggerFactory.getLogger(SongMetadataMerger.class);
+  private static final String FIELD_RESOURCE_ID = "resourceId";
+  private static final String FIELD_ID = "id";
+  private static final String FIELD_SONG_METADATA = "song_metadata";
+  private static final int MERGE_QUEUE_CAPACITY = 1_000;
+  private final CascadeDeleteProperties properties;
+  private final Scheduler mergeScheduler;
+
+  public SongMetadataMerger(CascadeDeleteProperties properties) {
+    this.properties = properties;
+    this.mergeScheduler = Schedulers.newBoundedElastic(properties.getMergeThreads(), MERGE_QUEUE_CAPACITY, "song-metadata-merge");
+  }
+
+  public Mono<List<Map<String, Object>>> merge(List<Map<String, Object>> songRecords, List<Map<String, Object>> resourceRecords) {
+    if (resourceRecords.size() < properties.getMergeOffloadThreshold()) {
+      return Mono.just(mergeNow(songRecords, resourceRecords));
+    }
+    return Mono.fromCallable(() -> mergeNow(songRecords, resourceRecords))
+        .subscribeOn(mergeScheduler);
+  }
+
+  List<Map<String, Object>> mergeNow(List<Map<String, Object>> songRecords, List<Map<String, Object>> resourceRecords) {
+    log.info("Deleted song records: {}", songRecords.size());
+    LongKeyedIndex<Map<String, Object>> songRecordsByResourceId = new LongKeyedIndex<>(songRecords.size());
+    for (Map<String, Object> songRecord : songRecords) {
+      if (songRecord.get(FIELD_RESOURCE_ID) instanceof Number resourceId) {
+        songRecordsByResourceId.putIfAbsent(resourceId.longValue(), songRecord);
+      }
+    }
+    for (Map<String, Object> resourceRecord : resourceRecords) {
+      resourceRecord.put(FIELD_SONG_METADATA, resourceRecord.get(FIELD_ID) instanceof Number id
+          ? songRecordsByResourceId.get(id.longValue())
+          : null);
+    }
+    log.debug("Mapped resource records after deleting song records: {}", resourceRecords);
+    return resourceRecords;
+  }
+
+  @Override
+  public void destroy() {
+    mergeScheduler.dispose();
+  }
+}
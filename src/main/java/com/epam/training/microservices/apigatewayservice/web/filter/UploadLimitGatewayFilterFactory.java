@@ -0,0 +1,172 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Limits the uploads streamed through the gateway. The request body is passed to the upstream chunk by chunk under Reactor
+ * backpressure and is never aggregated; this filter only accounts the bytes. Uploads declaring a Content-Length above the
+ * per-request limit, or that would take the uploads in flight above the global limit, are rejected before any byte is proxied.
+ * Uploads without a Content-Length are accounted as their chunks arrive and fail once they cross a limit.
+ */
+@Component
+public class UploadLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<UploadLimitGatewayFilterFactory.Config> {
+  private static final Logger log = LoggerFactory.getLogger(UploadLimitGatewayFilterFactory.class);
+  private static final String METRIC_PREFIX = "gateway.upload";
+  private final AtomicLong inFlightBytes = new AtomicLong();
+  private final DistributionSummary uploadSize;
+  private final Timer uploadDuration;
+  private final Counter tooLargeRejections;
+  private final Counter inFlightRejections;
+
+  public UploadLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+    super(Config.class);
+    this.uploadSize = DistributionSummary.builder(METRIC_PREFIX + ".size")
+        .description("Bytes streamed to the upstream per upload")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    this.uploadDuration = Timer.builder(METRIC_PREFIX + ".duration")
+        .description("Duration of the uploads streamed to the upstream")
+        .register(meterRegistry);
+    this.tooLargeRejections = rejections(meterRegistry, "too-large");
+    this.inFlightRejections = rejections(meterRegistry, "in-flight-limit");
+    Gauge.builder(METRIC_PREFIX + ".in-flight", inFlightBytes, AtomicLong::get)
+        .description("Bytes of the uploads currently streamed through the gateway")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public GatewayFilter apply(Config config) {
+    final long maxRequestSize = config.maxRequestSize.toBytes();
+    final long maxInFlightSize = config.maxInFlightSize.toBytes();
+    return (exchange, chain) -> {
+      ServerHttpRequest request = exchange.getRequest();
+      long contentLength = request.getHeaders().getContentLength();
+      if (contentLength > maxRequestSize) {
+        tooLargeRejections.increment();
+        return Mono.error(tooLarge(maxRequestSize));
+      }
+      long reservation = Math.max(contentLength, 0);
+      if (!reserve(reservation, maxInFlightSize)) {
+        inFlightRejections.increment();
+        log.warn("Rejecting an upload of {} bytes, {} bytes of uploads are already in flight", reservation, inFlightBytes.get());
+        return Mono.error(inFlightLimitReached());
+      }
+      final Upload upload = new Upload(reservation, maxRequestSize, maxInFlightSize);
+      final long startTime = System.nanoTime();
+      ServerHttpRequest accountedRequest = new ServerHttpRequestDecorator(request) {
+        @Override
+        public Flux<DataBuffer> getBody() {
+          return super.getBody().handle((buffer, sink) -> {
+            ResponseStatusException rejection = upload.accept(buffer.readableByteCount());
+            if (rejection == null) {
+              sink.next(buffer);
+            } else {
+              DataBufferUtils.release(buffer);
+              sink.error(rejection);
+            }
+          });
+        }
+      };
+      return chain.filter(exchange.mutate().request(accountedRequest).build())
+          .doFinally(signalType -> {
+            upload.release();
+            uploadSize.record(upload.received);
+            uploadDuration.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+          });
+    };
+  }
+
+  private boolean reserve(long bytes, long maxInFlightSize) {
+    long current;
+    do {
+      current = inFlightBytes.get();
+      if (current + bytes > maxInFlightSize) {
+        return false;
+      }
+    } while (!inFlightBytes.compareAndSet(current, current + bytes));
+    return true;
+  }
+
+  private static ResponseStatusException tooLarge(long maxRequestSize) {
+    return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Upload exceeds the limit of " + maxRequestSize + " bytes");
+  }
+
+  private static ResponseStatusException inFlightLimitReached() {
+    return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads in progress, retry later");
+  }
+
+  private static Counter rejections(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder(METRIC_PREFIX + ".rejected")
+        .description("Uploads rejected by the gateway")
+        .tag("reason", reason)
+        .register(meterRegistry);
+  }
+
+  public static class Config {
+    private final DataSize maxRequestSize;
+    private final DataSize maxInFlightSize;
+
+    public Config(DataSize maxRequestSize, DataSize maxInFlightSize) {
+      this.maxRequestSize = maxRequestSize;
+      this.maxInFlightSize = maxInFlightSize;
+    }
+  }
+
+  private class Upload {
+    private final long maxRequestSize;
+    private final long maxInFlightSize;
+    private final AtomicBoolean released = new AtomicBoolean();
+    private volatile long reserved;
+    private volatile long received;
+
+    Upload(long reserved, long maxRequestSize, long maxInFlightSize) {
+      this.reserved = reserved;
+      this.maxRequestSize = maxRequestSize;
+      this.maxInFlightSize = maxInFlightSize;
+    }
+
+    ResponseStatusException accept(int bytes) {
+      received += bytes;
+      if (received > maxRequestSize) {
+        tooLargeRejections.increment();
+        return tooLarge(maxRequestSize);
+      }
+      if (received > reserved) {
+        if (!reserve(received - reserved, maxInFlightSize)) {
+          inFlightRejections.increment();
+          return inFlightLimitReached();
+        }
+        reserved = received;
+      }
+      return null;
+    }
+
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        inFlightBytes.addAndGet(-reserved);
+      }
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import static com.epam.training.microservices.apigatewayservice.web.loadbalancer.ExcludedInstanceServiceInstanceListSupplier.EXCLUDED_INSTANCE_HEADER;
+
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Drops the instance selection header from the requests proxied to the services.
+ */
+@Component
+public class ExcludedInstanceHeadersFilter implements HttpHeadersFilter {
+
+  @Override
+  public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+    if (!input.containsKey(EXCLUDED_INSTANCE_HEADER)) {
+      return input;
+    }
+    HttpHeaders filtered = new HttpHeaders();
+    input.forEach((name, values) -> {
+      if (!EXCLUDED_INSTANCE_HEADER.equalsIgnoreCase(name)) {
+        filtered.put(name, values);
+      }
+    });
+    return filtered;
+  }
+}
@@ -0,0 +1,54 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+/**
+ * Leaves out the instances named by the {@value #EXCLUDED_INSTANCE_HEADER} request header values, {@code host:port}, so that
+ * a further attempt of a request goes to another instance than the previous ones. When no instance would be left all of them
+ * stay in. The header is internal to the gateway, {@link ExcludedInstanceHeadersFilter} keeps it from reaching the service.
+ */
+public class ExcludedInstanceServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+  public static final String EXCLUDED_INSTANCE_HEADER = "X-Gateway-Excluded-Instance";
+
+  public ExcludedInstanceServiceInstanceListSupplier(ServiceInstanceListSupplier delegate) {
+    super(delegate);
+  }
+
+  @Override
+  public Flux<List<ServiceInstance>> get() {
+    return delegate.get();
+  }
+
+  @Override
+  public Flux<List<ServiceInstance>> get(Request request) {
+    List<String> excluded = excludedInstances(request);
+    if (excluded.isEmpty()) {
+      return delegate.get(request);
+    }
+    return delegate.get(request).map(instances -> exclude(instances, excluded));
+  }
+
+  private static List<String> excludedInstances(Request request) {
+    if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+      return context.getClientRequest().getHeaders().getOrEmpty(EXCLUDED_INSTANCE_HEADER);
+    }
+    return List.of();
+  }
+
+  private static List<ServiceInstance> exclude(List<ServiceInstance> instances, List<String> excluded) {
+    List<ServiceInstance> remaining = new ArrayList<>(instances.size());
+    for (ServiceInstance instance : instances) {
+      if (!excluded.contains(instance.getHost() + ':' + instance.getPort())) {
+        remaining.add(instance);
+      }
+    }
+    return remaining.isEmpty() ? instances : remaining;
+  }
+}
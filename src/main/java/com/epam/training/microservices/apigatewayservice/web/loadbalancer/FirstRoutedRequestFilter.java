@@ -0,0 +1,71 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures the cold start of the gateway: the time from the start of the JVM to the first request a service answered without
+ * a server error. The gauge is tagged with where the instance came from, the {@link RegistrySnapshot}, the registry or a
+ * direct URI of the route.
+ */
+@Component
+public class FirstRoutedRequestFilter implements GlobalFilter, Ordered {
+  private static final Logger log = LoggerFactory.getLogger(FirstRoutedRequestFilter.class);
+  private final AtomicBoolean recorded = new AtomicBoolean();
+  private final MeterRegistry meterRegistry;
+
+  public FirstRoutedRequestFilter(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    if (recorded.get()) {
+      return chain.filter(exchange);
+    }
+    return chain.filter(exchange).doOnSuccess(done -> {
+      HttpStatusCode status = exchange.getResponse().getStatusCode();
+      if (status != null && !status.is5xxServerError() && recorded.compareAndSet(false, true)) {
+        record(instances(exchange));
+      }
+    });
+  }
+
+  private void record(String instances) {
+    final long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+    TimeGauge.builder("gateway.startup.first-routed-request", () -> uptime, TimeUnit.MILLISECONDS)
+        .description("Time from the start of the JVM to the first successfully routed request")
+        .tag("instances", instances)
+        .register(meterRegistry);
+    log.info("First request routed {} ms after the start of the JVM, instances from {}", uptime, instances);
+  }
+
+  private static String instances(ServerWebExchange exchange) {
+    Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+    if (response == null || !response.hasServer()) {
+      return "direct";
+    }
+    return RegistrySnapshot.isSnapshotInstance(response.getServer()) ? "snapshot" : "registry";
+  }
+
+  @Override
+  public int getOrder() {
+    return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+  }
+}
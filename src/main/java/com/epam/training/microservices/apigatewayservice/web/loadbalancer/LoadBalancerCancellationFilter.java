@@ -0,0 +1,35 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Releases the instance chosen by the {@link PeakEwmaLoadBalancer} when the request is cancelled, by its client or as the
+ * losing attempt of a hedged request. The load balancer client filter only reports requests that complete or fail, without
+ * this a cancelled request would count as in flight on its instance for good.
+ */
+@Component
+public class LoadBalancerCancellationFilter implements GlobalFilter, Ordered {
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    return chain.filter(exchange).doOnCancel(() -> {
+      Response<?> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+      if (response instanceof PeakEwmaLoadBalancer.TrackedResponse trackedResponse) {
+        trackedResponse.release();
+      }
+    });
+  }
+
+  @Override
+  public int getOrder() {
+    return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+  }
+}
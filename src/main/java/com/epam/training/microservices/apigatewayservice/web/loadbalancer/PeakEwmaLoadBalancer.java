@@ -0,0 +1,287 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import com.epam.training.microservices.apigatewayservice.configuration.LoadBalancingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * Power of two choices over a peak EWMA of the response time: of two random instances the one with the lower response time
+ * times requests in flight gets the request. The average jumps to a slower response right away and decays back over
+ * {@code decay-time}, so a slow instance loses its share at once and wins it back gradually.
+ * <p>
+ * An instance failing {@code failure-threshold} requests in a row, errors or 5xx responses, is ejected for
+ * {@code ejection-time}, at most {@code max-ejection-percent} of the instances at a time. New and returning instances take
+ * a growing share of requests over {@code slow-start}. Being a {@link LoadBalancerLifecycle} the load balancer learns the
+ * outcome of the requests from the gateway and from the load-balanced web client.
+ */
+public class PeakEwmaLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+    LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+  private static final Logger log = LoggerFactory.getLogger(PeakEwmaLoadBalancer.class);
+  private static final double MIN_SLOW_START_WEIGHT = 0.1;
+  private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+  private final String serviceId;
+  private final double decayNanos;
+  private final int failureThreshold;
+  private final long ejectionNanos;
+  private final int maxEjectionPercent;
+  private final long slowStartNanos;
+  private final LongSupplier clock;
+  private final Counter ejections;
+  private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+  private volatile int instanceCount;
+
+  public PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, LoadBalancingProperties properties, MeterRegistry meterRegistry) {
+    this(serviceInstanceListSupplierProvider, serviceId, properties, meterRegistry, System::nanoTime);
+  }
+
+  PeakEwmaLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+      String serviceId, LoadBalancingProperties properties, MeterRegistry meterRegistry, LongSupplier clock) {
+    this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+    this.serviceId = serviceId;
+    this.decayNanos = properties.getDecayTime().toNanos();
+    this.failureThreshold = properties.getFailureThreshold();
+    this.ejectionNanos = properties.getEjectionTime().toNanos();
+    this.maxEjectionPercent = properties.getMaxEjectionPercent();
+    this.slowStartNanos = properties.getSlowStart().toNanos();
+    this.clock = clock;
+    this.ejections = Counter.builder("gateway.load-balancer.ejections")
+        .description("Instances ejected from load balancing after consecutive failures")
+        .tag("service", serviceId)
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Mono<Response<ServiceInstance>> choose(Request request) {
+    ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+    return supplier.get(request).next().map(instances -> choose(supplier, instances));
+  }
+
+  private Response<ServiceInstance> choose(ServiceInstanceListSupplier supplier, List<ServiceInstance> instances) {
+    if (instances.isEmpty()) {
+      log.warn("No servers available for service: {}", serviceId);
+      return new EmptyResponse();
+    }
+    long now = clock.getAsLong();
+    forgetRemovedInstances(instances);
+    List<ServiceInstance> candidates = available(instances, now);
+    ServiceInstance chosen;
+    InstanceStats chosenStats;
+    if (candidates.size() == 1) {
+      chosen = candidates.get(0);
+      chosenStats = stats(chosen, now);
+    } else {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      int first = random.nextInt(candidates.size());
+      int second = random.nextInt(candidates.size() - 1);
+      if (second >= first) {
+        second++;
+      }
+      InstanceStats firstStats = stats(candidates.get(first), now);
+      InstanceStats secondStats = stats(candidates.get(second), now);
+      // an instance without responses yet is as fast as the other one until it has some
+      double firstLatency = firstStats.latency(secondStats.latency(0));
+      double secondLatency = secondStats.latency(firstLatency);
+      if (firstStats.cost(firstLatency, now) <= secondStats.cost(secondLatency, now)) {
+        chosen = candidates.get(first);
+        chosenStats = firstStats;
+      } else {
+        chosen = candidates.get(second);
+        chosenStats = secondStats;
+      }
+    }
+    if (supplier instanceof SelectedInstanceCallback callback) {
+      callback.selectedServiceInstance(chosen);
+    }
+    chosenStats.inFlight.incrementAndGet();
+    return new TrackedResponse(chosen, chosenStats, now);
+  }
+
+  private List<ServiceInstance> available(List<ServiceInstance> instances, long now) {
+    List<ServiceInstance> available = new ArrayList<>(instances.size());
+    for (ServiceInstance instance : instances) {
+      if (!stats(instance, now).isEjected(now)) {
+        available.add(instance);
+      }
+    }
+    return available.isEmpty() ? instances : available;
+  }
+
+  private InstanceStats stats(ServiceInstance instance, long now) {
+    return stats.computeIfAbsent(key(instance), key -> new InstanceStats(now));
+  }
+
+  private void forgetRemovedInstances(List<ServiceInstance> instances) {
+    instanceCount = instances.size();
+    if (stats.size() > instances.size()) {
+      Set<String> keys = new HashSet<>();
+      for (ServiceInstance instance : instances) {
+        keys.add(key(instance));
+      }
+      stats.keySet().retainAll(keys);
+    }
+  }
+
+  private boolean mayEject(long now) {
+    int ejected = 0;
+    for (InstanceStats instanceStats : stats.values()) {
+      if (instanceStats.isEjected(now)) {
+        ejected++;
+      }
+    }
+    return (ejected + 1) * 100 <= instanceCount * maxEjectionPercent;
+  }
+
+  @Override
+  public void onStart(Request<Object> request) {
+  }
+
+  @Override
+  public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+  }
+
+  @Override
+  public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+    if (!(completionContext.getLoadBalancerResponse() instanceof TrackedResponse response)) {
+      return;
+    }
+    switch (completionContext.status()) {
+      case DISCARD -> response.release();
+      case FAILED -> response.complete(false);
+      case SUCCESS -> response.complete(!isServerError(completionContext.getClientResponse()));
+    }
+  }
+
+  private static boolean isServerError(Object clientResponse) {
+    return clientResponse instanceof ResponseData responseData && responseData.getHttpStatus() != null
+        && responseData.getHttpStatus().is5xxServerError();
+  }
+
+  private static String key(ServiceInstance instance) {
+    return instance.getHost() + ':' + instance.getPort();
+  }
+
+  /**
+   * The chosen instance, the request releases it exactly once, whether it completes, fails or is cancelled.
+   */
+  public final class TrackedResponse extends DefaultResponse {
+    private final InstanceStats instanceStats;
+    private final long startTime;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    TrackedResponse(ServiceInstance instance, InstanceStats instanceStats, long startTime) {
+      super(instance);
+      this.instanceStats = instanceStats;
+      this.startTime = startTime;
+    }
+
+    /**
+     * Releases the instance without telling anything about its health, like for a cancelled request.
+     */
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        instanceStats.inFlight.decrementAndGet();
+      }
+    }
+
+    void complete(boolean succeeded) {
+      if (!released.compareAndSet(false, true)) {
+        return;
+      }
+      instanceStats.inFlight.decrementAndGet();
+      long now = clock.getAsLong();
+      if (succeeded) {
+        instanceStats.succeeded(now - startTime, now);
+      } else if (instanceStats.failed(now) && mayEject(now)) {
+        instanceStats.eject(now);
+        ejections.increment();
+        log.warn("Ejected {} of {} for {} ms after {} failures in a row", key(getServer()), serviceId, ejectionNanos / 1_000_000,
+            failureThreshold);
+      }
+    }
+  }
+
+  private final class InstanceStats {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private long warmingSince;
+    private double latencyNanos;
+    private long updatedAt;
+    private int consecutiveFailures;
+    private boolean ejected;
+    private long ejectedUntil;
+
+    InstanceStats(long now) {
+      this.warmingSince = now;
+      this.updatedAt = now;
+    }
+
+    synchronized double latency(double unknown) {
+      return latencyNanos > 0 ? latencyNanos : unknown;
+    }
+
+    synchronized double cost(double latency, long now) {
+      double weight = 1.0;
+      long warming = now - warmingSince;
+      if (warming < slowStartNanos) {
+        weight = Math.max(MIN_SLOW_START_WEIGHT, (double) warming / slowStartNanos);
+      }
+      return Math.max(latency, 1) * (inFlight.get() + 1) / weight;
+    }
+
+    synchronized void succeeded(long latency, long now) {
+      consecutiveFailures = 0;
+      if (latency > latencyNanos) {
+        latencyNanos = latency;
+      } else {
+        double decay = Math.exp(-(now - updatedAt) / decayNanos);
+        latencyNanos = latencyNanos * decay + latency * (1 - decay);
+      }
+      updatedAt = now;
+    }
+
+    /**
+     * Returns whether the failure makes the instance an outlier.
+     */
+    synchronized boolean failed(long now) {
+      return !isEjected(now) && ++consecutiveFailures >= failureThreshold;
+    }
+
+    synchronized void eject(long now) {
+      consecutiveFailures = 0;
+      ejected = true;
+      ejectedUntil = now + ejectionNanos;
+      // back from ejection the instance warms up like a new one
+      warmingSince = ejectedUntil;
+    }
+
+    synchronized boolean isEjected(long now) {
+      return ejected && now - ejectedUntil < 0;
+    }
+  }
+}
@@ -0,0 +1,237 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RegistrySnapshotProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ResourceServiceProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RouteTableProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Last known instances of every load-balanced service and last configuration of the routes from the configuration server,
+ * kept in {@code registry-snapshot.directory}. The instances are read when the gateway starts, so that it routes to them
+ * while the first fetch of the registry is still in flight, and written every {@code save-interval} when they changed. The
+ * route configuration is written once the gateway is up or refreshed and read back by
+ * {@link RegistrySnapshotEnvironmentPostProcessor}. Snapshots older than {@code max-age} are ignored.
+ */
+@Component
+public class RegistrySnapshot implements SmartLifecycle {
+  public static final String SNAPSHOT_METADATA = "gateway-registry-snapshot";
+  private static final Logger log = LoggerFactory.getLogger(RegistrySnapshot.class);
+  private static final String REMOTE_PROPERTY_SOURCE_PREFIX = "bootstrapProperties";
+  private static final List<String> CONFIG_PREFIXES = List.of(RouteTableProperties.PREFIX + '.',
+      SongServiceProperties.PREFIX + '.', ResourceServiceProperties.PREFIX + '.', StorageServiceProperties.PREFIX + '.');
+  private final RegistrySnapshotProperties properties;
+  private final ObjectMapper objectMapper;
+  private final ConfigurableEnvironment environment;
+  private final Path directory;
+  private final Map<String, List<SnapshotInstance>> services = new ConcurrentHashMap<>();
+  private final AtomicBoolean dirty = new AtomicBoolean();
+  private volatile Disposable saving;
+
+  public RegistrySnapshot(RegistrySnapshotProperties properties, ObjectMapper objectMapper,
+      ConfigurableEnvironment environment) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.environment = environment;
+    this.directory = Path.of(properties.getDirectory());
+    if (properties.isEnabled()) {
+      load();
+    }
+  }
+
+  /**
+   * Returns the instances of the service in the snapshot, marked with {@value #SNAPSHOT_METADATA}, none when it has none.
+   */
+  public List<ServiceInstance> instances(String serviceId) {
+    List<SnapshotInstance> instances = services.get(serviceId);
+    if (instances == null) {
+      return List.of();
+    }
+    return instances.stream().map(instance -> instance.toServiceInstance(serviceId)).toList();
+  }
+
+  /**
+   * Takes the instances of the service the registry returned into the snapshot. An empty list leaves the last known instances
+   * in, the registry being empty for a moment is what the snapshot is for.
+   */
+  public void update(String serviceId, List<ServiceInstance> instances) {
+    if (!properties.isEnabled() || instances.isEmpty()) {
+      return;
+    }
+    List<SnapshotInstance> snapshot = instances.stream().map(SnapshotInstance::of).toList();
+    if (!snapshot.equals(services.put(serviceId, snapshot))) {
+      dirty.set(true);
+    }
+  }
+
+  public static boolean isSnapshotInstance(ServiceInstance instance) {
+    return instance.getMetadata() != null && instance.getMetadata().containsKey(SNAPSHOT_METADATA);
+  }
+
+  @EventListener({ApplicationReadyEvent.class, EnvironmentChangeEvent.class})
+  public void saveConfig() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    Properties config = new Properties();
+    for (PropertySource<?> source : environment.getPropertySources()) {
+      if (source.getName().startsWith(REMOTE_PROPERTY_SOURCE_PREFIX) && source instanceof EnumerablePropertySource<?> enumerable) {
+        for (String name : enumerable.getPropertyNames()) {
+          if (isRouteConfig(name) && !config.containsKey(name)) {
+            String value = resolve(name);
+            if (value != null) {
+              config.setProperty(name, value);
+            }
+          }
+        }
+      }
+    }
+    // started without the configuration server, the snapshot in use stays as it is
+    if (config.isEmpty()) {
+      return;
+    }
+    try {
+      ByteArrayOutputStream content = new ByteArrayOutputStream();
+      config.store(content, "Route configuration from the configuration server");
+      write(directory.resolve(RegistrySnapshotProperties.CONFIG_FILE), content.toByteArray());
+    } catch (IOException e) {
+      log.warn("Failed to save the route configuration snapshot to {}", directory, e);
+    }
+  }
+
+  @Override
+  public void start() {
+    if (properties.isEnabled()) {
+      saving = Flux.interval(properties.getSaveInterval(), Schedulers.boundedElastic())
+          .onBackpressureDrop()
+          .subscribe(tick -> save());
+    }
+  }
+
+  @Override
+  public void stop() {
+    Disposable current = saving;
+    if (current != null) {
+      current.dispose();
+      saving = null;
+      save();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return saving != null;
+  }
+
+  private void load() {
+    Path file = directory.resolve(RegistrySnapshotProperties.INSTANCES_FILE);
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+    try (InputStream content = Files.newInputStream(file)) {
+      Snapshot snapshot = objectMapper.readValue(content, Snapshot.class);
+      if (snapshot.savedAt() == null || snapshot.savedAt().plus(properties.getMaxAge()).isBefore(Instant.now())) {
+        log.info("Ignoring the registry snapshot {} saved at {}, older than {}", file, snapshot.savedAt(),
+            properties.getMaxAge());
+        return;
+      }
+      if (snapshot.services() != null) {
+        services.putAll(snapshot.services());
+      }
+      log.info("Loaded the instances of {} from the registry snapshot saved at {}", services.keySet(), snapshot.savedAt());
+    } catch (IOException e) {
+      log.warn("Failed to load the registry snapshot {}", file, e);
+    }
+  }
+
+  private void save() {
+    if (!dirty.getAndSet(false)) {
+      return;
+    }
+    try {
+      Snapshot snapshot = new Snapshot(Instant.now(), new HashMap<>(services));
+      write(directory.resolve(RegistrySnapshotProperties.INSTANCES_FILE), objectMapper.writeValueAsBytes(snapshot));
+    } catch (IOException e) {
+      dirty.set(true);
+      log.warn("Failed to save the registry snapshot to {}", directory, e);
+    }
+  }
+
+  /**
+   * Replaces the file at once, a gateway stopped in the middle of a save finds the previous snapshot and not half of a new one.
+   */
+  private static void write(Path file, byte[] content) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      Files.write(temporary, content);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private String resolve(String name) {
+    try {
+      return environment.getProperty(name);
+    } catch (IllegalArgumentException e) {
+      // a placeholder that only resolves on the configuration server side is not worth a snapshot entry
+      return null;
+    }
+  }
+
+  private static boolean isRouteConfig(String name) {
+    for (String prefix : CONFIG_PREFIXES) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  record Snapshot(Instant savedAt, Map<String, List<SnapshotInstance>> services) {
+  }
+
+  record SnapshotInstance(String instanceId, String host, int port, boolean secure, Map<String, String> metadata) {
+
+    static SnapshotInstance of(ServiceInstance instance) {
+      return new SnapshotInstance(instance.getInstanceId(), instance.getHost(), instance.getPort(), instance.isSecure(),
+          instance.getMetadata() == null ? Map.of() : new HashMap<>(instance.getMetadata()));
+    }
+
+    ServiceInstance toServiceInstance(String serviceId) {
+      Map<String, String> snapshotMetadata = new HashMap<>(metadata == null ? Map.of() : metadata);
+      snapshotMetadata.put(SNAPSHOT_METADATA, "true");
+      return new DefaultServiceInstance(instanceId, serviceId, host, port, secure, snapshotMetadata);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import java.util.List;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+/**
+ * Serves the instances of the {@link RegistrySnapshot} until the registry returns instances of the service for the first time,
+ * from then on the instances of the registry, which it keeps in the snapshot. An empty list of the registry after that is
+ * passed on: the service went away and the snapshot does not bring it back.
+ */
+public class SnapshotServiceInstanceListSupplier extends DelegatingServiceInstanceListSupplier {
+  private final RegistrySnapshot registrySnapshot;
+  private volatile boolean discovered;
+
+  public SnapshotServiceInstanceListSupplier(ServiceInstanceListSupplier delegate, RegistrySnapshot registrySnapshot) {
+    super(delegate);
+    this.registrySnapshot = registrySnapshot;
+  }
+
+  @Override
+  public Flux<List<ServiceInstance>> get() {
+    return delegate.get().map(this::fromSnapshotUntilDiscovered);
+  }
+
+  private List<ServiceInstance> fromSnapshotUntilDiscovered(List<ServiceInstance> instances) {
+    if (!instances.isEmpty()) {
+      discovered = true;
+      registrySnapshot.update(getServiceId(), instances);
+      return instances;
+    }
+    return discovered ? instances : registrySnapshot.instances(getServiceId());
+  }
+}
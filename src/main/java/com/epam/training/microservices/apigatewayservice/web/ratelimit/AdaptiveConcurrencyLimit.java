@@ -0,0 +1,90 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import com.epam.training.microservices.apigatewayservice.configuration.ConcurrencyLimitProperties;
+
+/**
+ * Gradient concurrency limit: the limit follows the ratio of the long term average response time to the latest one. While
+ * responses are as fast as usual the limit grows by up to {@code queue-size} per sample, when they slow down beyond
+ * {@code rtt-tolerance} times the average it shrinks, at most to half per sample, and every dropped request, an error or a
+ * timeout, cuts it by a tenth. Samples taken with less than half of the limit in flight leave the limit alone, they tell
+ * nothing about what the service can take.
+ */
+public class AdaptiveConcurrencyLimit {
+  private static final double DROP_BACKOFF = 0.9;
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final double rttTolerance;
+  private final double smoothing;
+  private final int longWindow;
+  private double limit;
+  private double longRttNanos;
+  private int inFlight;
+
+  public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties) {
+    this.minLimit = properties.getMinLimit();
+    this.maxLimit = properties.getMaxLimit();
+    this.queueSize = properties.getQueueSize();
+    this.rttTolerance = properties.getRttTolerance();
+    this.smoothing = properties.getSmoothing();
+    this.longWindow = properties.getLongWindow();
+    this.limit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+  }
+
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  /**
+   * Releases a request that got its response after {@code rttNanos}.
+   */
+  public synchronized void onSuccess(long rttNanos) {
+    int inFlightAtResponse = inFlight;
+    inFlight--;
+    if (rttNanos <= 0) {
+      return;
+    }
+    longRttNanos = longRttNanos == 0 ? rttNanos : longRttNanos + (rttNanos - longRttNanos) * 2 / (longWindow + 1);
+    if (longRttNanos / rttNanos > 2) {
+      // responses got much faster, let the average catch up instead of holding the limit back for a whole window
+      longRttNanos *= 0.95;
+    }
+    if (inFlightAtResponse < limit / 2) {
+      return;
+    }
+    double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+    double newLimit = limit * gradient + queueSize;
+    limit = clamp(limit * (1 - smoothing) + newLimit * smoothing);
+  }
+
+  /**
+   * Releases a request that failed or timed out, a sign of overload.
+   */
+  public synchronized void onDropped() {
+    inFlight--;
+    limit = clamp(limit * DROP_BACKOFF);
+  }
+
+  /**
+   * Releases a request that tells nothing about the service, like one cancelled by its client.
+   */
+  public synchronized void onIgnored() {
+    inFlight--;
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  private double clamp(double value) {
+    return Math.max(minLimit, Math.min(maxLimit, value));
+  }
+}
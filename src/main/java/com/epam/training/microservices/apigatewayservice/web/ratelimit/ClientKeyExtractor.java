@@ -0,0 +1,17 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+@FunctionalInterface
+public interface ClientKeyExtractor {
+
+  /**
+   * Extracts the raw client identity from the exchange, or completes empty when the identity is not present.
+   */
+  Mono<String> extract(ServerWebExchange exchange);
+
+  default ClientKeyExtractor or(ClientKeyExtractor fallback) {
+    return exchange -> extract(exchange).switchIfEmpty(Mono.defer(() -> fallback.extract(exchange)));
+  }
+}
@@ -0,0 +1,76 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+public final class ClientKeyExtractors {
+
+  private ClientKeyExtractors() {
+  }
+
+  public static ClientKeyExtractor forProperties(RateLimiterProperties properties) {
+    ClientKeyExtractor clientIp = clientIp(properties.getTrustedProxies());
+    ClientKeyExtractor apiKey = apiKey(properties.getApiKeyHeader()).or(clientIp);
+    ClientKeyExtractor principal = principal().or(clientIp);
+    return switch (properties.getKeyStrategy()) {
+      case PRINCIPAL -> principal;
+      case API_KEY -> apiKey;
+      case CLIENT_IP -> clientIp;
+      case ROUTE_CLIENT -> routeAndClient(principal);
+    };
+  }
+
+  public static ClientKeyExtractor principal() {
+    return exchange -> exchange.getPrincipal()
+        .filter(principal -> !(principal instanceof AnonymousAuthenticationToken))
+        .map(Principal::getName)
+        .filter(StringUtils::hasText)
+        .map(name -> "principal:" + name);
+  }
+
+  /**
+   * The API key of a request authenticated with that key, its value has to be the credentials of the authentication. The
+   * header of an unauthenticated request is ignored, anyone could get a fresh bucket for every request by making up keys.
+   */
+  public static ClientKeyExtractor apiKey(String headerName) {
+    return exchange -> exchange.getPrincipal()
+        .filter(principal -> principal instanceof Authentication authentication && authentication.isAuthenticated()
+            && !(authentication instanceof AnonymousAuthenticationToken))
+        .map(principal -> ((Authentication) principal).getCredentials())
+        .filter(credentials -> credentials instanceof String apiKey && StringUtils.hasText(apiKey)
+            && apiKey.equals(exchange.getRequest().getHeaders().getFirst(headerName)))
+        .map(apiKey -> "api-key:" + apiKey);
+  }
+
+  public static ClientKeyExtractor clientIp(int trustedProxies) {
+    final RemoteAddressResolver resolver = trustedProxies > 0
+        ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxies)
+        : new RemoteAddressResolver() {};
+    return exchange -> Mono.justOrEmpty(resolver.resolve(exchange))
+        .map(ClientKeyExtractors::hostAddress)
+        .map(address -> "ip:" + address);
+  }
+
+  public static ClientKeyExtractor routeAndClient(ClientKeyExtractor client) {
+    return exchange -> {
+      Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+      String routeId = route != null ? route.getId() : "none";
+      return client.extract(exchange).map(clientKey -> routeId + ":" + clientKey);
+    };
+  }
+
+  private static String hostAddress(InetSocketAddress socketAddress) {
+    InetAddress address = socketAddress.getAddress();
+    return address != null ? address.getHostAddress() : socketAddress.getHostString();
+  }
+}
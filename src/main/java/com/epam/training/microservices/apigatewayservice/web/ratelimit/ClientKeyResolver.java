@@ -0,0 +1,50 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import java.nio.charset.StandardCharsets;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the rate limiter key of the calling client. The extracted identity is hashed into a fixed-length key, which
+ * keeps raw credentials out of Redis and spreads the keys evenly across Redis cluster slots, and is cached on the exchange
+ * so that it is extracted once per request.
+ */
+public class ClientKeyResolver implements KeyResolver {
+  public static final String CLIENT_KEY_ATTR = ClientKeyResolver.class.getName() + ".clientKey";
+  private static final String ANONYMOUS = "anonymous";
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private final ClientKeyExtractor extractor;
+
+  public ClientKeyResolver(ClientKeyExtractor extractor) {
+    this.extractor = extractor;
+  }
+
+  @Override
+  public Mono<String> resolve(ServerWebExchange exchange) {
+    String cachedKey = exchange.getAttribute(CLIENT_KEY_ATTR);
+    if (cachedKey != null) {
+      return Mono.just(cachedKey);
+    }
+    return extractor.extract(exchange)
+        .defaultIfEmpty(ANONYMOUS)
+        .map(ClientKeyResolver::hash)
+        .doOnNext(key -> exchange.getAttributes().put(CLIENT_KEY_ATTR, key));
+  }
+
+  static String hash(String rawKey) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte value : rawKey.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= value;
+      hash *= FNV_PRIME;
+    }
+    // murmur3 finalizer, FNV-1a alone leaves the low bits of similar keys (like neighbouring IPs) correlated
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return Long.toHexString(hash);
+  }
+}
@@ -0,0 +1,185 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Token bucket rate limiter that takes every decision from an in-process bucket and keeps the buckets of all gateway
+ * instances roughly in line by exchanging consumed tokens with Redis in the background, off the request path. At most
+ * {@code max-keys} buckets are kept, the clients beyond them share one bucket per route until idle buckets are evicted.
+ */
+@Primary
+@Component
+public class HybridRateLimiter extends AbstractRateLimiter<HybridRateLimiter.Config> implements SmartLifecycle {
+  public static final String CONFIGURATION_PROPERTY_NAME = "hybrid-rate-limiter";
+  private static final Logger log = LoggerFactory.getLogger(HybridRateLimiter.class);
+  private static final String SYNC_SCRIPT = "META-INF/scripts/hybrid_rate_limiter_sync.lua";
+  private static final int SYNC_CONCURRENCY = 64;
+  private static final String OVERFLOW_KEY = ".overflow";
+  private final ReactiveStringRedisTemplate redisTemplate;
+  private final RedisScript<Long> syncScript;
+  private final RateLimiterProperties properties;
+  private final Map<String, LocalTokenBucket> buckets = new ConcurrentHashMap<>();
+  private volatile Disposable synchronization;
+
+  @Autowired
+  public HybridRateLimiter(ReactiveStringRedisTemplate redisTemplate, ConfigurationService configurationService,
+      RateLimiterProperties properties) {
+    super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+    this.syncScript = RedisScript.of(new ClassPathResource(SYNC_SCRIPT), Long.class);
+  }
+
+  @Override
+  public Mono<Response> isAllowed(String routeId, String id) {
+    return isAllowed(routeId, id, config(routeId).getRequestedTokens());
+  }
+
+  /**
+   * Takes {@code requestedTokens} tokens from the bucket of the client on the route, instead of what a request of the route
+   * costs. A request standing for several requests of the route, like a batch, pays for all of them.
+   */
+  public Mono<Response> isAllowed(String routeId, String id, int requestedTokens) {
+    Config config = config(routeId);
+    long now = System.nanoTime();
+    String key = routeId + '.' + id;
+    LocalTokenBucket bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = buckets.computeIfAbsent(buckets.size() < properties.getMaxKeys() ? key : routeId + OVERFLOW_KEY,
+          newKey -> new LocalTokenBucket(config.getReplenishRate(), config.getBurstCapacity(), now));
+    }
+    long remaining = bucket.tryConsume(requestedTokens, now);
+    return Mono.just(new Response(remaining >= 0, headers(config, requestedTokens, Math.max(remaining, 0))));
+  }
+
+  /**
+   * Whether requests of the route are limited by this rate limiter, routes with an adaptive concurrency limit are not.
+   */
+  public boolean isConfigured(String routeId) {
+    return getConfig().containsKey(routeId);
+  }
+
+  private Config config(String routeId) {
+    Config config = getConfig().get(routeId);
+    if (config == null) {
+      throw new IllegalArgumentException("No Configuration found for route " + routeId);
+    }
+    return config;
+  }
+
+  private Map<String, String> headers(Config config, int requestedTokens, long remaining) {
+    Map<String, String> headers = new HashMap<>(4);
+    headers.put(RedisRateLimiter.REMAINING_HEADER, Long.toString(remaining));
+    headers.put(RedisRateLimiter.REPLENISH_RATE_HEADER, Integer.toString(config.getReplenishRate()));
+    headers.put(RedisRateLimiter.BURST_CAPACITY_HEADER, Integer.toString(config.getBurstCapacity()));
+    headers.put(RedisRateLimiter.REQUESTED_TOKENS_HEADER, Integer.toString(requestedTokens));
+    return headers;
+  }
+
+  Mono<Void> synchronize() {
+    final long now = System.nanoTime();
+    final long idleTimeout = properties.getKeyIdleTimeout().toNanos();
+    final AtomicInteger failures = new AtomicInteger();
+    buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleTimeout));
+    return Flux.fromIterable(buckets.entrySet())
+        .flatMap(entry -> synchronize(entry.getKey(), entry.getValue(), failures), SYNC_CONCURRENCY)
+        .then(Mono.fromRunnable(() -> {
+          if (failures.get() > 0) {
+            log.debug("Failed to synchronize {} rate limiter buckets with Redis", failures.get());
+          }
+        }));
+  }
+
+  private Mono<Void> synchronize(String key, LocalTokenBucket bucket, AtomicInteger failures) {
+    final long consumption = bucket.drainUnsyncedConsumption();
+    return redisTemplate.execute(syncScript, List.of(redisKey(key)),
+            List.of(Long.toString(consumption), Long.toString(properties.getKeyIdleTimeout().toMillis())))
+        .next()
+        .doOnNext(total -> bucket.applyClusterTotal(total, consumption, System.nanoTime()))
+        .then()
+        .onErrorResume(error -> {
+          bucket.restoreUnsyncedConsumption(consumption);
+          failures.incrementAndGet();
+          return Mono.empty();
+        });
+  }
+
+  private static String redisKey(String key) {
+    return "request_rate_limiter.{" + key + "}.consumed";
+  }
+
+  @Override
+  public void start() {
+    synchronization = Flux.interval(properties.getSyncInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> synchronize())
+        .subscribe();
+  }
+
+  @Override
+  public void stop() {
+    Disposable current = synchronization;
+    if (current != null) {
+      current.dispose();
+      synchronization = null;
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return synchronization != null;
+  }
+
+  public static class Config {
+    private int replenishRate;
+    private int burstCapacity;
+    private int requestedTokens = 1;
+
+    public int getReplenishRate() {
+      return replenishRate;
+    }
+
+    public Config setReplenishRate(int replenishRate) {
+      this.replenishRate = replenishRate;
+      return this;
+    }
+
+    public int getBurstCapacity() {
+      return burstCapacity;
+    }
+
+    public Config setBurstCapacity(int burstCapacity) {
+      this.burstCapacity = burstCapacity;
+      return this;
+    }
+
+    public int getRequestedTokens() {
+      return requestedTokens;
+    }
+
+    public Config setRequestedTokens(int requestedTokens) {
+      this.requestedTokens = requestedTokens;
+      return this;
+    }
+  }
+}
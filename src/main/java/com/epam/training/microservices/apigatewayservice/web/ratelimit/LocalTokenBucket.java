@@ -0,0 +1,81 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+final class LocalTokenBucket {
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private final double replenishRatePerNano;
+  private final long burstCapacity;
+  private double tokens;
+  private long lastRefillNanos;
+  private long lastAccessNanos;
+  private long unsyncedConsumption;
+  private long lastClusterTotal;
+  private boolean synced;
+
+  LocalTokenBucket(int replenishRate, int burstCapacity, long nowNanos) {
+    this.replenishRatePerNano = replenishRate / NANOS_PER_SECOND;
+    this.burstCapacity = burstCapacity;
+    this.tokens = burstCapacity;
+    this.lastRefillNanos = nowNanos;
+    this.lastAccessNanos = nowNanos;
+  }
+
+  /**
+   * Returns the remaining tokens when the request is allowed, or -1 when the bucket does not hold enough tokens.
+   */
+  synchronized long tryConsume(int requestedTokens, long nowNanos) {
+    refill(nowNanos);
+    lastAccessNanos = nowNanos;
+    if (tokens < requestedTokens) {
+      return -1;
+    }
+    tokens -= requestedTokens;
+    unsyncedConsumption += requestedTokens;
+    return (long) tokens;
+  }
+
+  synchronized long drainUnsyncedConsumption() {
+    long consumption = unsyncedConsumption;
+    unsyncedConsumption = 0;
+    return consumption;
+  }
+
+  synchronized void restoreUnsyncedConsumption(long consumption) {
+    unsyncedConsumption += consumption;
+  }
+
+  /**
+   * Drains the tokens other gateway instances consumed since the previous synchronization. The first observed total only
+   * sets the baseline, otherwise a fresh bucket would be charged with the whole history of the shared counter.
+   */
+  synchronized void applyClusterTotal(long clusterTotal, long ownConsumption, long nowNanos) {
+    long remoteConsumption;
+    if (!synced) {
+      remoteConsumption = 0;
+      synced = true;
+    } else if (clusterTotal >= lastClusterTotal) {
+      remoteConsumption = clusterTotal - lastClusterTotal - ownConsumption;
+    } else {
+      // the shared counter expired and started over
+      remoteConsumption = clusterTotal - ownConsumption;
+    }
+    lastClusterTotal = clusterTotal;
+    if (remoteConsumption > 0) {
+      refill(nowNanos);
+      tokens = Math.max(0, tokens - remoteConsumption);
+    }
+  }
+
+  synchronized boolean isIdle(long nowNanos, long idleTimeoutNanos) {
+    return unsyncedConsumption == 0 && nowNanos - lastAccessNanos > idleTimeoutNanos;
+  }
+
+  private void refill(long nowNanos) {
+    long elapsed = nowNanos - lastRefillNanos;
+    if (elapsed > 0) {
+      tokens = Math.min(burstCapacity, tokens + elapsed * replenishRatePerNano);
+      lastRefillNanos = nowNanos;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RequestBudgetProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Gateway wide budget of the upstream requests the gateway sends on its own behalf, like hedges and retries. Every client request
+ * deposits {@code ratio} of a request, an extra request withdraws a whole one, so extra requests stay below that share of the
+ * traffic. The balance is capped at {@code max-balance}: when an incident slows down every request the saved up budget is
+ * spent quickly and the gateway stops adding load.
+ */
+@Component
+public class RequestBudget {
+  private static final String DEPOSITED_ATTR = RequestBudget.class.getName() + ".deposited";
+  private static final long REQUEST = 1_000_000;
+  private final AtomicLong balance = new AtomicLong();
+  private final long deposit;
+  private final long maxBalance;
+  private final Counter granted;
+  private final Counter exhausted;
+
+  public RequestBudget(RequestBudgetProperties properties, MeterRegistry meterRegistry) {
+    this.deposit = (long) (properties.getRatio() * REQUEST);
+    this.maxBalance = (long) properties.getMaxBalance() * REQUEST;
+    Gauge.builder("gateway.request-budget.balance", balance, value -> (double) value.get() / REQUEST)
+        .description("Extra upstream requests the gateway may send right now")
+        .register(meterRegistry);
+    this.granted = withdrawals(meterRegistry, "granted");
+    this.exhausted = withdrawals(meterRegistry, "exhausted");
+  }
+
+  /**
+   * Deposits for the request of the exchange unless a filter earlier in the route already did.
+   */
+  public void deposit(ServerWebExchange exchange) {
+    if (exchange.getAttributes().putIfAbsent(DEPOSITED_ATTR, Boolean.TRUE) == null) {
+      deposit();
+    }
+  }
+
+  public void deposit() {
+    long current;
+    do {
+      current = balance.get();
+      if (current >= maxBalance) {
+        return;
+      }
+    } while (!balance.compareAndSet(current, Math.min(maxBalance, current + deposit)));
+  }
+
+  public boolean tryWithdraw() {
+    long current;
+    do {
+      current = balance.get();
+      if (current < REQUEST) {
+        exhausted.increment();
+        return false;
+      }
+    } while (!balance.compareAndSet(current, current - REQUEST));
+    granted.increment();
+    return true;
+  }
+
+  private static Counter withdrawals(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("gateway.request-budget.withdrawals")
+        .description("Extra upstream requests asked for, by whether the budget allowed them")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,126 @@
+package com.epam.training.microservices.apigatewayservice.web.router;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RouteProperties;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Route table compiled into one path segment trie per HTTP method. A request is looked up once, in time proportional to the
+ * number of its path segments rather than the number of routes, and the matched route id is kept on the exchange, so the
+ * predicate of every route is a plain comparison with it. Literal segments take precedence over {@code {variable}} segments,
+ * routes sharing method and path are told apart by their required query params, in table order.
+ */
+public class RouteDispatchIndex {
+  public static final String MATCHED_ROUTE_ATTR = RouteDispatchIndex.class.getName() + ".matchedRoute";
+  private static final String NO_ROUTE = "";
+  private final Map<HttpMethod, Node> roots = new HashMap<>();
+
+  public RouteDispatchIndex(List<RouteProperties> routes) {
+    routes.forEach(this::add);
+  }
+
+  public Predicate<ServerWebExchange> matches(String routeId) {
+    return exchange -> routeId.equals(lookup(exchange));
+  }
+
+  /**
+   * Returns the id of the route the request is dispatched to, or an empty string when none matches. The path variables of
+   * the matched route are exposed as URI template variables for filters like SetPath.
+   */
+  public String lookup(ServerWebExchange exchange) {
+    String routeId = exchange.getAttribute(MATCHED_ROUTE_ATTR);
+    if (routeId == null) {
+      Match match = find(exchange.getRequest());
+      routeId = match == null ? NO_ROUTE : match.routeId();
+      if (match != null) {
+        ServerWebExchangeUtils.putUriTemplateVariables(exchange, match.variables());
+      }
+      exchange.getAttributes().put(MATCHED_ROUTE_ATTR, routeId);
+    }
+    return routeId;
+  }
+
+  Match find(ServerHttpRequest request) {
+    Node root = roots.get(request.getMethod());
+    if (root == null) {
+      return null;
+    }
+    String[] segments = segments(request.getPath().pathWithinApplication().value());
+    return find(root, segments, 0, new String[segments.length], 0, request.getQueryParams());
+  }
+
+  private Match find(Node node, String[] segments, int index, String[] values, int valueCount,
+      MultiValueMap<String, String> queryParams) {
+    if (index == segments.length) {
+      for (Entry entry : node.entries) {
+        if (queryParams.keySet().containsAll(entry.queryParams())) {
+          return new Match(entry.routeId(), entry.variables(values));
+        }
+      }
+      return null;
+    }
+    Node literal = node.literals.get(segments[index]);
+    if (literal != null) {
+      Match match = find(literal, segments, index + 1, values, valueCount, queryParams);
+      if (match != null) {
+        return match;
+      }
+    }
+    if (node.variable != null) {
+      values[valueCount] = segments[index];
+      return find(node.variable, segments, index + 1, values, valueCount + 1, queryParams);
+    }
+    return null;
+  }
+
+  private void add(RouteProperties route) {
+    Node node = roots.computeIfAbsent(route.getMethod(), method -> new Node());
+    List<String> variableNames = new ArrayList<>();
+    for (String segment : segments(route.getPath())) {
+      if (segment.startsWith("{") && segment.endsWith("}")) {
+        variableNames.add(segment.substring(1, segment.length() - 1));
+        if (node.variable == null) {
+          node.variable = new Node();
+        }
+        node = node.variable;
+      } else {
+        node = node.literals.computeIfAbsent(segment, literal -> new Node());
+      }
+    }
+    node.entries.add(new Entry(route.getId(), List.copyOf(route.getQuery()), List.copyOf(variableNames)));
+  }
+
+  private static String[] segments(String path) {
+    return StringUtils.tokenizeToStringArray(path, "/");
+  }
+
+  record Match(String routeId, Map<String, String> variables) {
+  }
+
+  private record Entry(String routeId, List<String> queryParams, List<String> variableNames) {
+    Map<String, String> variables(String[] values) {
+      Map<String, String> variables = new LinkedHashMap<>();
+      for (int i = 0; i < variableNames.size(); i++) {
+        variables.put(variableNames.get(i), StringUtils.uriDecode(values[i], StandardCharsets.UTF_8));
+      }
+      return variables;
+    }
+  }
+
+  private static class Node {
+    private final Map<String, Node> literals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private Node variable;
+  }
+}
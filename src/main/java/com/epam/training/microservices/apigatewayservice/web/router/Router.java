@@ -1,148 +1,237 @@
 package com.epam.training.microservices.apigatewayservice.web.router;
 
+import com.epam.training.microservices.apigatewayservice.configuration.BatchProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.CascadeDeleteProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.CoalescingProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.CompressionProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.HedgingProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimitMode;
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimitProperties;
 import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RequestBudgetProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RequestMonitorProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RetryProperties;
 import com.epam.training.microservices.apigatewayservice.configuration.ResourceServiceProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RouteProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RouteTableProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.ServiceProperties;
 import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
 import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.filter.AdaptiveConcurrencyLimitGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.BudgetedRetryGatewayFilterFactory;
 import com.epam.training.microservices.apigatewayservice.web.filter.DeleteSongMetadataGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.HedgingGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.InvalidateResponseCacheGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.RangeRequestGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.RefreshAheadCacheGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.RequestCoalescingGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.ResponseCacheGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.ServiceResilienceGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.UploadLimitGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.HybridRateLimiter;
+import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.GatewayFilterSpec;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.route.builder.UriSpec;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
 
+/**
+ * Builds the gateway routes from the {@code route-table} properties. Matching, target path, rate limit, timeout and caching
+ * come from the table, the service specific behaviour of a route is attached by its id in {@link #routeFilters}.
+ */
 @Component
 @EnableConfigurationProperties(value = {ResourceServiceProperties.class, SongServiceProperties.class, StorageServiceProperties.class,
-    RateLimiterProperties.class})
+    RateLimiterProperties.class, CascadeDeleteProperties.class, RequestMonitorProperties.class, RouteTableProperties.class,
+    HedgingProperties.class, RequestBudgetProperties.class, RetryProperties.class, CompressionProperties.class,
+    CoalescingProperties.class})
 public class Router {
 
-  //TODO: security and key resolver should be implemented
-  private static final String PATH_ID = "/{id}";
-  private static final String PATH_RESOURCES = "/resources";
+  //TODO: security should be implemented
+  public static final String SERVICE_METADATA = "service";
   private static final String PATH_SONGS = "/songs";
-  private static final String PATH_STORAGES = "/storages";
-  private static final String PATH_DELETE_SONG_METADATA_BY_RESOURCE_ID = "/by-resource-id";
+  private static final String PATH_BATCH = "/batch";
   private static final String QUERY_PARAM_ID = "id";
-  private static final String QUERY_PARAM_TYPE = "type";
+  private static final String SERVICE_RESOURCE = "resource";
+  private static final String SERVICE_SONG = "song";
+  private static final String SERVICE_STORAGE = "storage";
 
   @Value("${spring.application.name}")
   private String applicationName;
 
   @Bean
-  public RouteLocator routes(RouteLocatorBuilder builder, ResourceServiceProperties resourceServiceProperties,
+  public RouteDispatchIndex routeDispatchIndex(RouteTableProperties routeTableProperties) {
+    return new RouteDispatchIndex(routeTableProperties.getRoutes());
+  }
+
+  // served by the gateway itself, the handler mapping of router functions goes ahead of the gateway routes
+  @Bean
+  public RouterFunction<ServerResponse> songBatchRoute(SongBatchHandler songBatchHandler) {
+    return RouterFunctions.route(RequestPredicates.POST(PATH_SONGS + PATH_BATCH), songBatchHandler::lookup);
+  }
+
+  @Bean
+  public RouteLocator routes(RouteLocatorBuilder builder, RouteTableProperties routeTableProperties,
+      RouteDispatchIndex routeDispatchIndex, ResourceServiceProperties resourceServiceProperties,
+      SongServiceProperties songServiceProperties, StorageServiceProperties storageServiceProperties,
+      RateLimiterProperties rateLimiterProperties, DeleteSongMetadataGatewayFilterFactory deleteSongMetadataGatewayFilterFactory,
+      HybridRateLimiter hybridRateLimiter, RequestRateLimiterGatewayFilterFactory requestRateLimiterGatewayFilterFactory,
+      ResponseCacheGatewayFilterFactory responseCacheGatewayFilterFactory,
+      RequestCoalescingGatewayFilterFactory requestCoalescingGatewayFilterFactory,
+      HedgingGatewayFilterFactory hedgingGatewayFilterFactory,
+      BudgetedRetryGatewayFilterFactory budgetedRetryGatewayFilterFactory,
+      AdaptiveConcurrencyLimitGatewayFilterFactory adaptiveConcurrencyLimitGatewayFilterFactory,
+      ServiceResilienceGatewayFilterFactory serviceResilienceGatewayFilterFactory,
+      InvalidateResponseCacheGatewayFilterFactory invalidateResponseCacheGatewayFilterFactory,
+      RangeRequestGatewayFilterFactory rangeRequestGatewayFilterFactory,
+      UploadLimitGatewayFilterFactory uploadLimitGatewayFilterFactory,
+      RefreshAheadCacheGatewayFilterFactory refreshAheadCacheGatewayFilterFactory) {
+
+    final Map<String, ServiceProperties> services = Map.of(
+        SERVICE_RESOURCE, resourceServiceProperties,
+        SERVICE_SONG, songServiceProperties,
+        SERVICE_STORAGE, storageServiceProperties);
+    final Map<String, List<GatewayFilter>> routeFilters = routeFilters(resourceServiceProperties, songServiceProperties,
+        storageServiceProperties, deleteSongMetadataGatewayFilterFactory, invalidateResponseCacheGatewayFilterFactory,
+        rangeRequestGatewayFilterFactory, uploadLimitGatewayFilterFactory, refreshAheadCacheGatewayFilterFactory);
+
+    RouteLocatorBuilder.Builder routes = builder.routes();
+    for (RouteProperties routeProperties : routeTableProperties.getRoutes()) {
+      final ServiceProperties service = services.get(routeProperties.getService());
+      if (service == null) {
+        throw new IllegalStateException("Route " + routeProperties.getId() + " refers to unknown service "
+            + routeProperties.getService() + ", known services: " + services.keySet());
+      }
+      if (routeProperties.isRetry() && routeProperties.getMethod() != HttpMethod.GET
+          && routeProperties.getMethod() != HttpMethod.DELETE) {
+        throw new IllegalStateException("Route " + routeProperties.getId() + " retries " + routeProperties.getMethod()
+            + " requests, only GET and DELETE routes can be retried");
+      }
+      if (SongBatchHandler.LOOKUP_ROUTE.equals(routeProperties.getId())
+          && routeProperties.getRateLimit().getMode() != RateLimitMode.ADAPTIVE) {
+        checkBatchFitsBurst(songServiceProperties.getBatch(),
+            orDefault(routeProperties.getRateLimit().getBurstCapacity(), rateLimiterProperties.getBurstCapacity()));
+      }
+      routes.route(routeProperties.getId(), route -> {
+        UriSpec spec = route
+            .predicate(routeDispatchIndex.matches(routeProperties.getId()))
+            .filters(filter -> filters(filter, routeProperties, service, rateLimiterProperties, hybridRateLimiter,
+                requestRateLimiterGatewayFilterFactory, responseCacheGatewayFilterFactory, requestCoalescingGatewayFilterFactory, hedgingGatewayFilterFactory, budgetedRetryGatewayFilterFactory,
+                adaptiveConcurrencyLimitGatewayFilterFactory, serviceResilienceGatewayFilterFactory,
+                routeFilters.getOrDefault(routeProperties.getId(), List.of())))
+            .metadata(SERVICE_METADATA, service.getName());
+        if (routeProperties.getTimeout() != null) {
+          spec = spec.metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, routeProperties.getTimeout().toMillis());
+        }
+        return spec.uri(service.getUri());
+      });
+    }
+    return routes.build();
+  }
+
+  private static void checkBatchFitsBurst(BatchProperties batch, int burstCapacity) {
+    int tokens = SongBatchHandler.tokens(batch.getMaxIds(), batch);
+    if (tokens > burstCapacity) {
+      throw new IllegalStateException("A song batch of max-ids " + batch.getMaxIds() + " costs " + tokens + " tokens of "
+          + SongBatchHandler.LOOKUP_ROUTE + ", more than its burst capacity " + burstCapacity
+          + ", lower max-ids or raise ids-per-token");
+    }
+  }
+
+  private static GatewayFilterSpec filters(GatewayFilterSpec filter, RouteProperties routeProperties, ServiceProperties service,
+      RateLimiterProperties rateLimiterProperties, HybridRateLimiter hybridRateLimiter,
+      RequestRateLimiterGatewayFilterFactory requestRateLimiterGatewayFilterFactory,
+      ResponseCacheGatewayFilterFactory responseCacheGatewayFilterFactory,
+      RequestCoalescingGatewayFilterFactory requestCoalescingGatewayFilterFactory,
+      HedgingGatewayFilterFactory hedgingGatewayFilterFactory, BudgetedRetryGatewayFilterFactory budgetedRetryGatewayFilterFactory,
+      AdaptiveConcurrencyLimitGatewayFilterFactory adaptiveConcurrencyLimitGatewayFilterFactory,
+      ServiceResilienceGatewayFilterFactory serviceResilienceGatewayFilterFactory, List<GatewayFilter> routeFilters) {
+    if (routeProperties.isCache()) {
+      filter.filter(responseCacheGatewayFilterFactory.apply(new ResponseCacheGatewayFilterFactory.Config(service.getName())));
+    }
+    if (routeProperties.isCoalesce()) {
+      // behind the cache, only misses are coalesced
+      filter.filter(requestCoalescingGatewayFilterFactory.apply(new RequestCoalescingGatewayFilterFactory.Config()));
+    }
+    // route filters go ahead of the rate limiter, the upload limit has to reject oversized uploads before anything else
+    routeFilters.forEach(filter::filter);
+    final RateLimitProperties rateLimit = routeProperties.getRateLimit();
+    if (rateLimit.getMode() != RateLimitMode.ADAPTIVE) {
+      hybridRateLimiter.getConfig().put(routeProperties.getId(), new HybridRateLimiter.Config()
+          .setReplenishRate(orDefault(rateLimit.getReplenishRate(), rateLimiterProperties.getReplenishRate()))
+          .setBurstCapacity(orDefault(rateLimit.getBurstCapacity(), rateLimiterProperties.getBurstCapacity()))
+          .setRequestedTokens(orDefault(rateLimit.getRequestedTokens(), rateLimiterProperties.getRequestedTokens())));
+      GatewayFilter rateLimiter = requestRateLimiterGatewayFilterFactory.apply(routeProperties.getId(),
+          config -> config.setRateLimiter(hybridRateLimiter));
+      if (routeProperties.isHedge()) {
+        // ordered like the hedge and declared ahead of it, the client pays for a request once and not for every attempt
+        filter.filter(rateLimiter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+      } else {
+        filter.filter(rateLimiter);
+      }
+    }
+    if (routeProperties.isHedge()) {
+      // every attempt passes the adaptive concurrency limit and the circuit breaker on its own
+      filter.filter(hedgingGatewayFilterFactory.apply(new HedgingGatewayFilterFactory.Config(routeProperties.getId())));
+    }
+    if (rateLimit.getMode() == RateLimitMode.ADAPTIVE) {
+      filter.filter(adaptiveConcurrencyLimitGatewayFilterFactory.apply(
+          new AdaptiveConcurrencyLimitGatewayFilterFactory.Config(service)));
+    }
+    if (routeProperties.isRetry()) {
+      // behind the rate limit a retry costs the client nothing, every retry passes the circuit breaker again
+      filter.filter(budgetedRetryGatewayFilterFactory.apply(new BudgetedRetryGatewayFilterFactory.Config(routeProperties.getId())));
+    }
+    return filter
+        .filter(serviceResilienceGatewayFilterFactory.apply(new ServiceResilienceGatewayFilterFactory.Config(service)))
+        .setPath(service.getPath() + routeProperties.getTargetPath());
+  }
+
+  private static Map<String, List<GatewayFilter>> routeFilters(ResourceServiceProperties resourceServiceProperties,
       SongServiceProperties songServiceProperties, StorageServiceProperties storageServiceProperties,
-      RateLimiterProperties rateLimiterProperties, DeleteSongMetadataGatewayFilterFactory deleteSongMetadataGatewayFilterFactory) {
+      DeleteSongMetadataGatewayFilterFactory deleteSongMetadataGatewayFilterFactory,
+      InvalidateResponseCacheGatewayFilterFactory invalidateResponseCacheGatewayFilterFactory,
+      RangeRequestGatewayFilterFactory rangeRequestGatewayFilterFactory,
+      UploadLimitGatewayFilterFactory uploadLimitGatewayFilterFactory,
+      RefreshAheadCacheGatewayFilterFactory refreshAheadCacheGatewayFilterFactory) {
+    return Map.of(
+        "get-resource-by-id", List.of(
+            rangeRequestGatewayFilterFactory.apply(new RangeRequestGatewayFilterFactory.Config())),
+        "post-resources", List.of(
+            uploadLimitGatewayFilterFactory.apply(new UploadLimitGatewayFilterFactory.Config(
+                resourceServiceProperties.getUpload().getMaxRequestSize(),
+                resourceServiceProperties.getUpload().getMaxInFlightSize()))),
+        "delete-resources", List.of(
+            deleteSongMetadataGatewayFilterFactory.apply(new DeleteSongMetadataGatewayFilterFactory.Config(
+                songServiceProperties, songServiceProperties.getByResourceId(), QUERY_PARAM_ID)),
+            invalidateResponseCacheGatewayFilterFactory.apply(
+                new InvalidateResponseCacheGatewayFilterFactory.Config(songServiceProperties.getName()))),
+        "delete-songs", List.of(
+            invalidateResponseCacheGatewayFilterFactory.apply(new InvalidateResponseCacheGatewayFilterFactory.Config(
+                songServiceProperties.getName(), PATH_SONGS, QUERY_PARAM_ID))),
+        "delete-songs-by-resource-id", List.of(
+            invalidateResponseCacheGatewayFilterFactory.apply(
+                new InvalidateResponseCacheGatewayFilterFactory.Config(songServiceProperties.getName()))),
+        "get-storages-by-type", List.of(
+            refreshAheadCacheGatewayFilterFactory.apply(new RefreshAheadCacheGatewayFilterFactory.Config(
+                storageServiceProperties.getName() + "-by-type", storageServiceProperties.getTypeCache(),
+                storageServiceProperties))));
+  }
 
-    return builder.routes()
-        .route("get-resource-by-id", route -> route
-            .method(HttpMethod.GET).and()
-            .path(PATH_RESOURCES + PATH_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(resourceServiceProperties.getPath() + PATH_ID))
-            .uri(resourceServiceProperties.getUri())
-        )
-        .route("post-resources", route -> route
-            .method(HttpMethod.POST).and()
-            .path(PATH_RESOURCES)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(resourceServiceProperties.getPath()))
-            .uri(resourceServiceProperties.getUri())
-        )
-        .route("delete-resources", route -> route
-            .method(HttpMethod.DELETE).and()
-            .path(PATH_RESOURCES).and()
-            .query(QUERY_PARAM_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(resourceServiceProperties.getPath())
-                .filter(deleteSongMetadataGatewayFilterFactory.apply(new DeleteSongMetadataGatewayFilterFactory.Config(
-                    PATH_SONGS + PATH_DELETE_SONG_METADATA_BY_RESOURCE_ID, QUERY_PARAM_ID))
-                )
-            )
-            .uri(resourceServiceProperties.getUri())
-        )
-        .route("get-song-by-id", route -> route
-            .method(HttpMethod.GET).and()
-            .path(PATH_SONGS + PATH_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(songServiceProperties.getPath() + PATH_ID))
-            .uri(songServiceProperties.getUri())
-        )
-        .route("post-song", route -> route
-            .method(HttpMethod.POST).and()
-            .path(PATH_SONGS)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(songServiceProperties.getPath()))
-            .uri(songServiceProperties.getUri())
-        )
-        .route("delete-songs", route -> route
-            .method(HttpMethod.DELETE).and()
-            .path(PATH_SONGS).and()
-            .query(QUERY_PARAM_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(songServiceProperties.getPath()))
-            .uri(songServiceProperties.getUri())
-        )
-        .route("delete-songs-by-resource-id", route -> route
-            .method(HttpMethod.DELETE).and()
-            .path(PATH_SONGS + PATH_DELETE_SONG_METADATA_BY_RESOURCE_ID).and()
-            .query(QUERY_PARAM_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(songServiceProperties.getPath() + songServiceProperties.getByResourceId()))
-            .uri(songServiceProperties.getUri())
-        )
-        .route("get-storages-by-type", route -> route
-            .method(HttpMethod.GET).and()
-            .path(PATH_STORAGES).and()
-            .query(QUERY_PARAM_TYPE)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(storageServiceProperties.getPath()))
-            .uri(storageServiceProperties.getUri()))
-        .route("get-storage-by-id", route -> route
-            .method(HttpMethod.GET).and()
-            .path(PATH_STORAGES + PATH_ID)
-            .filters(filter -> filter
-                .requestRateLimiter().rateLimiter(RedisRateLimiter.class,
-                    config -> config.setReplenishRate(rateLimiterProperties.getReplenishRate())
-                        .setBurstCapacity(rateLimiterProperties.getBurstCapacity())
-                        .setRequestedTokens(rateLimiterProperties.getRequestedTokens())).and()
-                .setPath(storageServiceProperties.getPath() + PATH_ID))
-            .uri(storageServiceProperties.getUri())
-        )
-        .build();
+  private static int orDefault(Integer value, int defaultValue) {
+    return value == null ? defaultValue : value;
   }
 }
@@ -0,0 +1,227 @@
+package com.epam.training.microservices.apigatewayservice.web.router;
+
+import com.epam.training.microservices.apigatewayservice.configuration.BatchProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.support.JsonArrayEncoder;
+import com.epam.training.microservices.apigatewayservice.web.cache.CachedResponse;
+import com.epam.training.microservices.apigatewayservice.web.cache.ResponseCacheManager;
+import com.epam.training.microservices.apigatewayservice.web.filter.ResponseCacheGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.filter.ServiceResilienceGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.HybridRateLimiter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles {@code POST /songs/batch}: looks up every id of the JSON array in the request body with {@code GET /songs/{id}} of
+ * the song service, at most {@code max-concurrency} at a time, and streams a {@link SongBatchItem} per id back as soon as its
+ * lookup is done, in a JSON array or as NDJSON when the client accepts {@code application/x-ndjson}. A failed lookup is an item
+ * with its status and error, the batch itself still succeeds. Duplicate ids are looked up once.
+ * <p>
+ * A batch costs the client a token of the rate limit of {@code get-song-by-id} per {@code ids-per-token} ids, batching does not
+ * get around it, and a batch of {@code max-ids} fits into the burst capacity of the route, which is checked at startup.
+ * Lookups are answered from the song response cache when they can, the others pass the circuit breaker and bulkhead of the
+ * song service and their responses are cached like the ones of the route.
+ */
+@Component
+public class SongBatchHandler {
+  public static final String LOOKUP_ROUTE = "get-song-by-id";
+  private static final Logger log = LoggerFactory.getLogger(SongBatchHandler.class);
+  private static final String LB_SCHEME = "lb://";
+  private static final String PATH_SONGS = "/songs/";
+  private static final ParameterizedTypeReference<List<String>> IDS_TYPE = new ParameterizedTypeReference<>() {};
+  private static final TypeReference<Map<String, Object>> SONG_TYPE = new TypeReference<>() {};
+  private final WebClient webClient;
+  private final SongServiceProperties properties;
+  private final ObjectMapper objectMapper;
+  private final HybridRateLimiter rateLimiter;
+  private final KeyResolver keyResolver;
+  private final ServiceResilienceGatewayFilterFactory serviceResilience;
+  private final ResponseCacheManager responseCacheManager;
+  private final JsonArrayEncoder encoder;
+  private final String songUri;
+  private final DistributionSummary batchSize;
+  private final Counter found;
+  private final Counter failed;
+
+  public SongBatchHandler(WebClient webClient, SongServiceProperties properties, ObjectMapper objectMapper,
+      HybridRateLimiter rateLimiter, KeyResolver keyResolver, ServiceResilienceGatewayFilterFactory serviceResilience,
+      ResponseCacheManager responseCacheManager, MeterRegistry meterRegistry) {
+    this.webClient = webClient;
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.rateLimiter = rateLimiter;
+    this.keyResolver = keyResolver;
+    this.serviceResilience = serviceResilience;
+    this.responseCacheManager = responseCacheManager;
+    this.encoder = new JsonArrayEncoder(objectMapper);
+    // straight to the song service, the load-balanced web client resolves its name, not through the gateway routes where
+    // every id would be charged to the rate limit again
+    String serviceUri = properties.getUri().startsWith(LB_SCHEME)
+        ? "http://" + properties.getUri().substring(LB_SCHEME.length())
+        : properties.getUri();
+    this.songUri = serviceUri + properties.getPath() + "/{id}";
+    this.batchSize = DistributionSummary.builder("gateway.song-batch.size")
+        .description("Distinct song ids per batch lookup")
+        .register(meterRegistry);
+    this.found = items(meterRegistry, "found");
+    this.failed = items(meterRegistry, "failed");
+  }
+
+  public Mono<ServerResponse> lookup(ServerRequest request) {
+    final BatchProperties batch = properties.getBatch();
+    return request.bodyToMono(IDS_TYPE)
+        .onErrorMap(DecodingException.class,
+            error -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of song ids", error))
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of song ids")))
+        .map(ids -> distinctIds(ids, batch))
+        .flatMap(ids -> charge(request, tokens(ids.size(), batch)).flatMap(limit -> {
+          if (!limit.isAllowed()) {
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS).headers(headers -> headers.setAll(limit.getHeaders()))
+                .build();
+          }
+          batchSize.record(ids.size());
+          Cache<String, CachedResponse> cache = responseCacheManager.getCache(properties.getName());
+          Flux<SongBatchItem> items = Flux.fromIterable(ids)
+              .flatMap(id -> lookup(id, batch, cache), batch.getMaxConcurrency());
+          ServerResponse.BodyBuilder response = ServerResponse.ok().headers(headers -> headers.setAll(limit.getHeaders()));
+          if (acceptsNdjson(request)) {
+            return response.contentType(MediaType.APPLICATION_NDJSON).body(items, SongBatchItem.class);
+          }
+          return response
+              .contentType(MediaType.APPLICATION_JSON)
+              .body(BodyInserters.fromDataBuffers(encoder.encode(items, request.exchange().getResponse().bufferFactory())));
+        }));
+  }
+
+  /**
+   * Tokens of the rate limit of {@code get-song-by-id} a batch of the given number of distinct ids costs.
+   */
+  public static int tokens(int ids, BatchProperties batch) {
+    return (ids + batch.getIdsPerToken() - 1) / batch.getIdsPerToken();
+  }
+
+  private Mono<RateLimiter.Response> charge(ServerRequest request, int tokens) {
+    if (!rateLimiter.isConfigured(LOOKUP_ROUTE)) {
+      return Mono.just(new RateLimiter.Response(true, Map.of()));
+    }
+    return keyResolver.resolve(request.exchange())
+        .flatMap(key -> rateLimiter.isAllowed(LOOKUP_ROUTE, key, tokens));
+  }
+
+  private Mono<SongBatchItem> lookup(String id, BatchProperties batch, Cache<String, CachedResponse> cache) {
+    String cacheKey = PATH_SONGS + id;
+    CachedResponse cached = cache == null ? null : cache.getIfPresent(cacheKey);
+    if (cached != null) {
+      return Mono.fromCallable(() -> SongBatchItem.found(id, cached.status().value(), song(cached.body())))
+          .doOnNext(item -> found.increment())
+          // not a song the batch can return, asks the song service instead
+          .onErrorResume(DecodingException.class, error -> lookup(id, batch, null));
+    }
+    Mono<SongBatchItem> call = webClient.get()
+        .uri(songUri, id)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchangeToMono(response -> {
+          HttpStatusCode status = response.statusCode();
+          if (!status.is2xxSuccessful()) {
+            return response.releaseBody().thenReturn(SongBatchItem.failed(id, status.value(), reason(status)));
+          }
+          return response.bodyToMono(byte[].class)
+              .map(body -> {
+                SongBatchItem item = SongBatchItem.found(id, status.value(), song(body));
+                HttpHeaders headers = response.headers().asHttpHeaders();
+                if (cache != null && HttpStatus.OK.equals(status) && ResponseCacheGatewayFilterFactory.isCacheable(headers)
+                    && body.length <= responseCacheManager.getMaxEntrySize(properties.getName())) {
+                  cache.put(cacheKey, CachedResponse.of(status, headers, body));
+                }
+                return item;
+              })
+              .defaultIfEmpty(SongBatchItem.failed(id, HttpStatus.BAD_GATEWAY.value(), "Empty response of the song service"));
+        })
+        .timeout(batch.getItemTimeout());
+    return serviceResilience.protect(properties, call, item -> HttpStatusCode.valueOf(item.status()))
+        .onErrorResume(error -> {
+          log.debug("Lookup of song {} of a batch failed: {}", id, error.toString());
+          return Mono.just(failed(id, error));
+        })
+        .doOnNext(item -> (item.song() != null ? found : failed).increment());
+  }
+
+  private Map<String, Object> song(byte[] body) {
+    try {
+      return objectMapper.readValue(body, SONG_TYPE);
+    } catch (IOException e) {
+      throw new DecodingException("Song of the song service is not valid JSON", e);
+    }
+  }
+
+  private static SongBatchItem failed(String id, Throwable error) {
+    if (error instanceof TimeoutException) {
+      return SongBatchItem.failed(id, HttpStatus.GATEWAY_TIMEOUT.value(), HttpStatus.GATEWAY_TIMEOUT.getReasonPhrase());
+    }
+    if (error instanceof ResponseStatusException rejected) {
+      // an open circuit or a full bulkhead of the song service
+      return SongBatchItem.failed(id, rejected.getStatusCode().value(), rejected.getReason());
+    }
+    return SongBatchItem.failed(id, HttpStatus.BAD_GATEWAY.value(), HttpStatus.BAD_GATEWAY.getReasonPhrase());
+  }
+
+  private static Set<String> distinctIds(List<String> ids, BatchProperties batch) {
+    Set<String> distinct = new LinkedHashSet<>(ids.size());
+    for (String id : ids) {
+      if (!StringUtils.hasText(id)) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Song ids must not be blank");
+      }
+      distinct.add(id.trim());
+    }
+    if (distinct.isEmpty() || distinct.size() > batch.getMaxIds()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "A batch takes 1 to " + batch.getMaxIds() + " song ids, got " + distinct.size());
+    }
+    return distinct;
+  }
+
+  private static boolean acceptsNdjson(ServerRequest request) {
+    return request.headers().accept().stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+  }
+
+  private static String reason(HttpStatusCode status) {
+    HttpStatus resolved = HttpStatus.resolve(status.value());
+    return resolved != null ? resolved.getReasonPhrase() : "Unexpected status of the song service";
+  }
+
+  private static Counter items(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("gateway.song-batch.items")
+        .description("Song ids looked up by batch, by whether the song was found")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,20 @@
+package com.epam.training.microservices.apigatewayservice.web.router;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+
+/**
+ * Outcome of the lookup of one id of a song batch: the status the song service answered with, or the gateway when the song
+ * service could not be reached in time, and either the song or the reason it is missing.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SongBatchItem(String id, int status, Map<String, Object> song, String error) {
+
+  static SongBatchItem found(String id, int status, Map<String, Object> song) {
+    return new SongBatchItem(id, status, song, null);
+  }
+
+  static SongBatchItem failed(String id, int status, String error) {
+    return new SongBatchItem(id, status, null, error);
+  }
+}
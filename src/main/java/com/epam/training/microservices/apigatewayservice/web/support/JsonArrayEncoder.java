@@ -0,0 +1,52 @@
+package com.epam.training.microservices.apigatewayservice.web.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes a stream of elements as a JSON array, one buffer per element, so that the array is never held in memory as a whole.
+ * The start of the array goes out with the first element, a stream failing before it has written nothing yet and can still be
+ * answered with an error status.
+ */
+public class JsonArrayEncoder {
+  private static final byte ARRAY_START = '[';
+  private static final byte SEPARATOR = ',';
+  private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] EMPTY_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+  private final ObjectMapper objectMapper;
+
+  public JsonArrayEncoder(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  public Flux<DataBuffer> encode(Flux<?> elements, DataBufferFactory bufferFactory) {
+    return Flux.defer(() -> {
+      AtomicBoolean empty = new AtomicBoolean(true);
+      Flux<DataBuffer> encodedElements = elements
+          .index()
+          .map(element -> encode(element.getT2(), element.getT1() == 0 ? ARRAY_START : SEPARATOR, bufferFactory))
+          .doOnNext(buffer -> empty.set(false));
+      return Flux.concat(
+          encodedElements,
+          Mono.fromSupplier(() -> bufferFactory.wrap(empty.get() ? EMPTY_ARRAY : ARRAY_END)));
+    });
+  }
+
+  private DataBuffer encode(Object element, byte prefix, DataBufferFactory bufferFactory) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(element);
+      return bufferFactory.allocateBuffer(json.length + 1)
+          .write(prefix)
+          .write(json);
+    } catch (JsonProcessingException e) {
+      throw Exceptions.propagate(e);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.epam.training.microservices.apigatewayservice.web.support;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * Compresses a body buffer by buffer, each buffer is flushed so that the client can decode what it received so far and
+ * nothing but the deflater state is held between buffers. Counts the bytes in and out and the time spent compressing.
+ */
+public class StreamingCompressor {
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final int OUTPUT_CHUNK = 8192;
+  private final Encoding encoding;
+  private final Deflater deflater;
+  private final CRC32 crc = new CRC32();
+  private boolean started;
+  private long inputBytes;
+  private long outputBytes;
+  private long compressionNanos;
+
+  public StreamingCompressor(Encoding encoding, int level) {
+    this.encoding = encoding;
+    // gzip wraps the raw deflate stream itself, deflate is the zlib format of the deflater
+    this.deflater = new Deflater(level, encoding == Encoding.GZIP);
+  }
+
+  /**
+   * Compresses and releases the buffer.
+   */
+  public DataBuffer compress(DataBuffer buffer, DataBufferFactory bufferFactory) {
+    byte[] input = new byte[buffer.readableByteCount()];
+    buffer.read(input);
+    DataBufferUtils.release(buffer);
+    long startTime = System.nanoTime();
+    Output output = new Output();
+    if (!started) {
+      started = true;
+      if (encoding == Encoding.GZIP) {
+        output.write(GZIP_HEADER);
+      }
+    }
+    if (encoding == Encoding.GZIP) {
+      crc.update(input);
+    }
+    deflater.setInput(input);
+    deflate(output, Deflater.SYNC_FLUSH);
+    inputBytes += input.length;
+    compressionNanos += System.nanoTime() - startTime;
+    return output.toBuffer(bufferFactory);
+  }
+
+  /**
+   * Ends the compressed stream, the last buffer of the body.
+   */
+  public DataBuffer finish(DataBufferFactory bufferFactory) {
+    long startTime = System.nanoTime();
+    Output output = new Output();
+    if (!started && encoding == Encoding.GZIP) {
+      output.write(GZIP_HEADER);
+    }
+    started = true;
+    deflater.finish();
+    deflate(output, Deflater.NO_FLUSH);
+    if (encoding == Encoding.GZIP) {
+      byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+      writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+      writeIntLittleEndian(trailer, 4, (int) inputBytes);
+      output.write(trailer);
+    }
+    compressionNanos += System.nanoTime() - startTime;
+    return output.toBuffer(bufferFactory);
+  }
+
+  /**
+   * Frees the deflater, whether the body was compressed to its end or not.
+   */
+  public void end() {
+    deflater.end();
+  }
+
+  public Encoding getEncoding() {
+    return encoding;
+  }
+
+  public long getInputBytes() {
+    return inputBytes;
+  }
+
+  public long getOutputBytes() {
+    return outputBytes;
+  }
+
+  public long getCompressionNanos() {
+    return compressionNanos;
+  }
+
+  private void deflate(Output output, int flush) {
+    byte[] chunk = new byte[OUTPUT_CHUNK];
+    while (true) {
+      int length = deflater.deflate(chunk, 0, chunk.length, flush);
+      output.write(chunk, length);
+      // a full chunk may leave more output behind, a finished deflater may still be draining
+      if (length < chunk.length && (flush != Deflater.NO_FLUSH || deflater.finished())) {
+        return;
+      }
+    }
+  }
+
+  private static void writeIntLittleEndian(byte[] target, int offset, int value) {
+    for (int i = 0; i < 4; i++) {
+      target[offset + i] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  public enum Encoding {
+    GZIP("gzip"), DEFLATE("deflate");
+
+    private final String token;
+
+    Encoding(String token) {
+      this.token = token;
+    }
+
+    public String getToken() {
+      return token;
+    }
+  }
+
+  private final class Output {
+    private byte[] bytes = new byte[OUTPUT_CHUNK];
+    private int length;
+
+    void write(byte[] source) {
+      write(source, source.length);
+    }
+
+    void write(byte[] source, int count) {
+      if (length + count > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+      }
+      System.arraycopy(source, 0, bytes, length, count);
+      length += count;
+    }
+
+    DataBuffer toBuffer(DataBufferFactory bufferFactory) {
+      outputBytes += length;
+      return bufferFactory.wrap(Arrays.copyOf(bytes, length));
+    }
+  }
+}
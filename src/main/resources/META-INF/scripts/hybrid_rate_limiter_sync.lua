@@ -0,0 +1,9 @@
+-- Adds the tokens consumed locally since the previous synchronization to the cluster-wide counter
+-- and returns the new total, so that every gateway instance can drain its local bucket by what others consumed.
+local consumed = tonumber(ARGV[1])
+local ttl = tonumber(ARGV[2])
+
+local total = redis.call("incrby", KEYS[1], consumed)
+redis.call("pexpire", KEYS[1], ttl)
+
+return total
@@ -0,0 +1,103 @@
+package com.epam.training.microservices.apigatewayservice;
+
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.STORAGE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.common.MockServer;
+import com.epam.training.microservices.apigatewayservice.common.MockServerExtension;
+import com.epam.training.microservices.apigatewayservice.common.Server;
+import com.epam.training.microservices.apigatewayservice.configuration.GatewayConfiguration;
+import com.epam.training.microservices.apigatewayservice.web.filter.HedgingGatewayFilterFactory;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.RequestBudget;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Hedged requests against a service of two instances. Both instances are the same mock server under two names, the hedge
+ * is answered by the next enqueued response while the first attempt still waits for its delayed one.
+ */
+@ExtendWith(MockServerExtension.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ContextConfiguration(classes = GatewayConfiguration.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = {
+    "spring.cloud.discovery.enabled=true",
+    "eureka.client.enabled=false",
+    "storage.service.uri=lb://${storage.service.name}",
+    "spring.cloud.discovery.client.simple.instances.STORAGE-SERVICE[0].uri=http://127.0.0.1:${storage.service.port}",
+    "spring.cloud.discovery.client.simple.instances.STORAGE-SERVICE[1].uri=http://localhost:${storage.service.port}",
+    "storage.service.cache.enabled=false",
+    "hedging.enabled=true",
+    "hedging.min-samples=1",
+    "hedging.min-delay=100ms",
+    "hedging.max-delay=100ms",
+    // a token a second, the bucket refills by less than a token while the requests of a test run
+    "rate-limiter.replenishRate=1"
+})
+class ApiGatewayHedgingTest {
+  private static final Map<String, String> JSON_HEADERS = Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private RequestBudget requestBudget;
+
+  @Test
+  void shouldChargeRateLimitOncePerHedgedRequest(@Server(service = STORAGE) MockServer storageServiceServer)
+      throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      requestBudget.deposit();
+    }
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 1, "type", "PERMANENT"), JSON_HEADERS);
+    getStorage(1);
+    // the hedge delay of the route is recomputed from the sample of the first request at most once a second
+    Thread.sleep(1_100);
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 2, "type", "PERMANENT"), JSON_HEADERS);
+    long remaining = remainingTokens(getStorage(2));
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 3, "type", "STAGING"), JSON_HEADERS,
+        Duration.ofSeconds(2));
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 3, "type", "PERMANENT"), JSON_HEADERS);
+
+    HttpHeaders hedged = webTestClient.get().uri("/storages/{id}", 3)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HedgingGatewayFilterFactory.HEDGED_HEADER, "true")
+        .expectBody()
+        .jsonPath("$.type").isEqualTo("PERMANENT")
+        .returnResult()
+        .getResponseHeaders();
+
+    assertThat(storageServiceServer.getRequestCount(), is(4));
+    assertThat(remainingTokens(hedged), is(remaining - 1));
+  }
+
+  private HttpHeaders getStorage(long id) {
+    return webTestClient.get().uri("/storages/{id}", id)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().doesNotExist(HedgingGatewayFilterFactory.HEDGED_HEADER)
+        .expectBody()
+        .returnResult()
+        .getResponseHeaders();
+  }
+
+  private static long remainingTokens(HttpHeaders headers) {
+    return Long.parseLong(headers.getFirst(RedisRateLimiter.REMAINING_HEADER));
+  }
+}
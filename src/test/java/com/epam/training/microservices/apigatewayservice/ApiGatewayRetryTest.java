@@ -0,0 +1,125 @@
+package com.epam.training.microservices.apigatewayservice;
+
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.SONG;
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.STORAGE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.epam.training.microservices.apigatewayservice.common.MockServer;
+import com.epam.training.microservices.apigatewayservice.common.MockServerExtension;
+import com.epam.training.microservices.apigatewayservice.common.Server;
+import com.epam.training.microservices.apigatewayservice.configuration.GatewayConfiguration;
+import com.epam.training.microservices.apigatewayservice.web.loadbalancer.ExcludedInstanceServiceInstanceListSupplier;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.RequestBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Retries of the routes against services of two instances. Both instances are the same mock server under two names, so
+ * whichever the first attempt goes to, the retry goes to the other one and is answered by the next enqueued response.
+ */
+@ExtendWith(MockServerExtension.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ContextConfiguration(classes = GatewayConfiguration.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = {
+    "spring.cloud.discovery.enabled=true",
+    "eureka.client.enabled=false",
+    "song.service.uri=lb://${song.service.name}",
+    "spring.cloud.discovery.client.simple.instances.SONG-SERVICE[0].uri=http://127.0.0.1:${song.service.port}",
+    "spring.cloud.discovery.client.simple.instances.SONG-SERVICE[1].uri=http://localhost:${song.service.port}",
+    "storage.service.uri=lb://${storage.service.name}",
+    "spring.cloud.discovery.client.simple.instances.STORAGE-SERVICE[0].uri=http://127.0.0.1:${storage.service.port}",
+    "spring.cloud.discovery.client.simple.instances.STORAGE-SERVICE[1].uri=http://localhost:${storage.service.port}",
+    "storage.service.cache.enabled=false"
+})
+class ApiGatewayRetryTest {
+  private static final Map<String, String> JSON_HEADERS = Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @Autowired
+  private RequestBudget requestBudget;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void shouldRetryGetOnOtherInstanceAfterConnectionReset(@Server(service = STORAGE) MockServer storageServiceServer)
+      throws InterruptedException {
+    fillBudget();
+    double retries = retries("get-storage-by-id", "attempted");
+    storageServiceServer.disconnectAfterRequest();
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 1, "type", "PERMANENT"), JSON_HEADERS);
+
+    webTestClient.get().uri("/storages/{id}", 1)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.type").isEqualTo("PERMANENT");
+
+    RecordedRequest failed = storageServiceServer.takeRequest();
+    RecordedRequest retried = storageServiceServer.takeRequest();
+    assertThat(retried.getHeader(HttpHeaders.HOST), not(failed.getHeader(HttpHeaders.HOST)));
+    assertThat(retried.getHeader(ExcludedInstanceServiceInstanceListSupplier.EXCLUDED_INSTANCE_HEADER), is(nullValue()));
+    assertThat(retries("get-storage-by-id", "attempted"), is(retries + 1));
+  }
+
+  @Test
+  void shouldNotRetryDeleteAfterConnectionWasEstablished(@Server(service = SONG) MockServer songServiceServer) {
+    fillBudget();
+    songServiceServer.disconnectAfterRequest();
+    songServiceServer.responseWithJson(HttpStatus.OK, List.of(Map.of("id", 1)), JSON_HEADERS);
+
+    webTestClient.delete().uri(uriBuilder -> uriBuilder.path("/songs").queryParam("id", "1").build())
+        .exchange()
+        .expectStatus().is5xxServerError();
+
+    assertThat(songServiceServer.getRequestCount(), is(1));
+  }
+
+  @Test
+  void shouldNotRetryWhenRequestBudgetIsExhausted(@Server(service = STORAGE) MockServer storageServiceServer) {
+    double denied = retries("get-storage-by-id", "denied");
+    storageServiceServer.disconnectAfterRequest();
+    storageServiceServer.responseWithJson(HttpStatus.OK, Map.of("id", 2, "type", "PERMANENT"), JSON_HEADERS);
+    while (requestBudget.tryWithdraw()) {
+      // spends what the requests of the other tests saved up
+    }
+
+    webTestClient.get().uri("/storages/{id}", 2)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().is5xxServerError();
+
+    assertThat(storageServiceServer.getRequestCount(), is(1));
+    assertThat(retries("get-storage-by-id", "denied"), is(denied + 1));
+  }
+
+  private void fillBudget() {
+    for (int i = 0; i < 100; i++) {
+      requestBudget.deposit();
+    }
+  }
+
+  private double retries(String routeId, String outcome) {
+    return meterRegistry.get("gateway.retry.retries").tag("routeId", routeId).tag("outcome", outcome).counter().count();
+  }
+}
@@ -3,16 +3,25 @@ package com.epam.training.microservices.apigatewayservice;
 import static com.epam.training.microservices.apigatewayservice.common.Server.Service.RESOURCE;
 import static com.epam.training.microservices.apigatewayservice.common.Server.Service.SONG;
 import static com.epam.training.microservices.apigatewayservice.common.Server.Service.STORAGE;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 
 import com.epam.training.microservices.apigatewayservice.common.MockServer;
 import com.epam.training.microservices.apigatewayservice.common.MockServerExtension;
 import com.epam.training.microservices.apigatewayservice.common.Server;
 import com.epam.training.microservices.apigatewayservice.configuration.GatewayConfiguration;
+import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import com.epam.training.microservices.apigatewayservice.web.cache.ResponseCacheManager;
+import com.epam.training.microservices.apigatewayservice.web.router.SongBatchItem;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -20,9 +29,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.zip.GZIPInputStream;
 import kotlin.jvm.functions.Function1;
 import okio.Buffer;
 import okio.Okio;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,11 +45,16 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.FluxExchangeResult;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.ResourceUtils;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @ExtendWith(MockServerExtension.class)
 @SpringBootTest
@@ -50,6 +66,22 @@ class ApiGatewayRouterTest {
   @Autowired
   private WebTestClient webTestClient;
 
+  @Autowired
+  private ResponseCacheManager responseCacheManager;
+
+  @Autowired
+  private SongServiceProperties songServiceProperties;
+
+  @Autowired
+  private StorageServiceProperties storageServiceProperties;
+
+  // the tests share the response caches of the context, a response cached by another test must not answer a request
+  @BeforeEach
+  void clearResponseCaches() {
+    responseCacheManager.invalidateAll(songServiceProperties.getName());
+    responseCacheManager.invalidateAll(storageServiceProperties.getName());
+  }
+
   @Test
   void shouldGetResourceById(@Server(service = RESOURCE) MockServer mockServer) throws IOException {
     mockServer.responseWithBuffer(HttpStatus.OK, fileBuffer(),
@@ -63,6 +95,49 @@ class ApiGatewayRouterTest {
         .expectHeader().contentLength(testFile().length());
   }
 
+  @Test
+  void shouldGetResourceRangeById(@Server(service = RESOURCE) MockServer mockServer) throws IOException {
+    mockServer.responseWithBuffer(HttpStatus.OK, fileBuffer(),
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE));
+
+    webTestClient.get()
+        .uri("/resources/{id}", 123L)
+        .accept(MediaType.APPLICATION_OCTET_STREAM)
+        .header(HttpHeaders.RANGE, "bytes=0-99")
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+        .expectHeader().valueEquals(HttpHeaders.CONTENT_RANGE, "bytes 0-99/" + testFile().length())
+        .expectHeader().contentLength(100);
+  }
+
+  @Test
+  void shouldReturnNotModifiedWhenGetResourceByIdWithMatchingEtag(@Server(service = RESOURCE) MockServer mockServer)
+      throws IOException {
+    mockServer.responseWithBuffer(HttpStatus.OK, fileBuffer(),
+        Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE, HttpHeaders.ETAG, "\"123-v1\""));
+
+    webTestClient.get()
+        .uri("/resources/{id}", 123L)
+        .accept(MediaType.APPLICATION_OCTET_STREAM)
+        .ifNoneMatch("\"123-v1\"")
+        .exchange()
+        .expectStatus().isNotModified()
+        .expectBody().isEmpty();
+  }
+
+  @Test
+  void shouldNotRecompressAudioOfResource(@Server(service = RESOURCE) MockServer mockServer) throws IOException {
+    mockServer.responseWithBuffer(HttpStatus.OK, fileBuffer(), Collections.singletonMap(HttpHeaders.CONTENT_TYPE, "audio/mpeg"));
+
+    webTestClient.get()
+        .uri("/resources/{id}", 123L)
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+        .expectHeader().contentLength(testFile().length());
+  }
+
   @Test
   void shouldReturnBadRequestWhenGetResourceById(@Server(service = RESOURCE) MockServer mockServer) {
     mockServer.response(HttpStatus.BAD_REQUEST);
@@ -171,6 +246,37 @@ class ApiGatewayRouterTest {
   }
 
 
+  @Test
+  void shouldRejectUploadAboveMaxRequestSize(@Server(service = RESOURCE) MockServer mockServer) {
+    webTestClient.post().uri("/resources")
+        .contentType(MediaType.valueOf("audio/mpeg"))
+        .bodyValue(new byte[600 * 1024])
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+
+    assertThat(mockServer.getRequestCount(), is(0));
+  }
+
+  @Test
+  void shouldRejectUploadAboveMaxInFlightSize(@Server(service = RESOURCE) MockServer mockServer) {
+    mockServer.responseToEveryRequest(HttpStatus.CREATED, mockServer.toJsonBuffer(Collections.singletonMap("id", 1L)),
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE), Duration.ofSeconds(1));
+
+    List<HttpStatus> statuses = Flux.range(0, 2)
+        .flatMap(request -> Mono.fromCallable(() -> webTestClient.post().uri("/resources")
+                .contentType(MediaType.valueOf("audio/mpeg"))
+                .bodyValue(new byte[200 * 1024])
+                .exchange()
+                .expectBody().returnResult().getStatus())
+            .subscribeOn(Schedulers.boundedElastic()))
+        .map(status -> HttpStatus.valueOf(status.value()))
+        .collectList()
+        .block();
+
+    assertThat(statuses, containsInAnyOrder(HttpStatus.CREATED, HttpStatus.SERVICE_UNAVAILABLE));
+    assertThat(mockServer.getRequestCount(), is(1));
+  }
+
   @Test
   void shouldThrowUploadFailedExceptionWhenSaveResource(@Server(service = RESOURCE) MockServer mockServer) throws IOException {
     mockServer.response(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -220,6 +326,25 @@ class ApiGatewayRouterTest {
         ));
   }
 
+  @Test
+  void shouldFailDeleteResourceByIdsWhenSongMetadataDeleteFails(@Server(service = RESOURCE) MockServer resourceServiceServer,
+      @Server(service = SONG) MockServer songServiceServer) throws InterruptedException {
+    List<Map<String, Object>> resourceRecords = List.of(Map.of("id", 1L), Map.of("id", 2L));
+    resourceServiceServer.responseWithJson(HttpStatus.OK, resourceRecords,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+    songServiceServer.response(HttpStatus.TOO_MANY_REQUESTS);
+
+    webTestClient.delete().uri(uriBuilder -> uriBuilder
+            .path("/resources")
+            .queryParam("id", "1,2")
+            .build())
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY);
+
+    // straight to the song service, not through the rate-limited route of the gateway
+    assertThat(songServiceServer.takeRequest().getPath(), is("/api/v1/songs/by-resource-id?id=1,2"));
+  }
+
   @Test
   void shouldReturnEmptyWhenResourceByIds(@Server(service = RESOURCE) MockServer resourceServiceServer,
       @Server(service = SONG) MockServer songServiceResource) {
@@ -344,6 +469,239 @@ class ApiGatewayRouterTest {
         .jsonPath("$.album").isEqualTo(songMetadata.get("album"))
         .jsonPath("$.artist").isEqualTo(songMetadata.get("artist"));
   }
+
+  @Test
+  void shouldCompressSongMetadata(@Server(service = SONG) MockServer songServiceServer) throws IOException {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 432_100L);
+    // above the minimum response size of 1KB
+    songMetadata.put("name", "Hello World ".repeat(200));
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE, HttpHeaders.ETAG, "\"432100-v1\""));
+
+    byte[] body = webTestClient.get().uri("/songs/{id}", 432_100L)
+        .accept(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+        .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .expectHeader().valueEquals(HttpHeaders.ETAG, "W/\"432100-v1\"")
+        .expectHeader().doesNotExist(HttpHeaders.CONTENT_LENGTH)
+        .expectBody(byte[].class)
+        .returnResult()
+        .getResponseBody();
+
+    try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      String json = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+      assertThat(json, containsString("\"id\":432100"));
+      assertThat(json, containsString((String) songMetadata.get("name")));
+    }
+  }
+
+  @Test
+  void shouldNotCompressSongMetadataBelowMinResponseSize(@Server(service = SONG) MockServer songServiceServer) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 432_101L);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+
+    webTestClient.get().uri("/songs/{id}", 432_101L)
+        .accept(MediaType.APPLICATION_JSON)
+        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+        .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .expectHeader().exists(HttpHeaders.CONTENT_LENGTH)
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(432_101);
+  }
+
+  @Test
+  void shouldLookUpSongBatchReportingMissingSongsInline(@Server(service = SONG) MockServer songServiceServer) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 765_432L);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+    songServiceServer.response(HttpStatus.NOT_FOUND);
+
+    webTestClient.post().uri("/songs/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of(765_432L, 765_433L))
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody()
+        .jsonPath("$.length()").isEqualTo(2)
+        .jsonPath("$[*].id").value(containsInAnyOrder("765432", "765433"))
+        .jsonPath("$[*].status").value(containsInAnyOrder(200, 404));
+  }
+
+  @Test
+  void shouldChargeSongBatchOfMaxIdsWithinBurstCapacity(@Server(service = SONG) MockServer songServiceServer)
+      throws InterruptedException {
+    songServiceServer.responseToEveryRequest(HttpStatus.NOT_FOUND, new Buffer(), Map.of(), Duration.ZERO);
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= 500; id++) {
+      ids.add(id);
+    }
+    // the bucket of the test client refills after the requests of the other tests
+    Thread.sleep(2_000);
+
+    FluxExchangeResult<SongBatchItem> batch = webTestClient.post().uri("/songs/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .accept(MediaType.APPLICATION_NDJSON)
+        .bodyValue(ids)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectHeader().valueEquals("X-RateLimit-Requested-Tokens", "20")
+        .expectHeader().valueEquals("X-RateLimit-Remaining", "0")
+        .returnResult(SongBatchItem.class);
+
+    // while the lookups of the first batch are still streaming, before the bucket refills
+    webTestClient.post().uri("/songs/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(ids)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+        .expectHeader().valueEquals("X-RateLimit-Requested-Tokens", "20")
+        .expectHeader().valueEquals("X-RateLimit-Remaining", "0")
+        .expectHeader().valueEquals("X-RateLimit-Burst-Capacity", "20")
+        .expectHeader().valueEquals("X-RateLimit-Replenish-Rate", "10");
+
+    assertThat(batch.getResponseBody().count().block(), is(500L));
+  }
+
+  @Test
+  void shouldRejectEmptySongBatch() {
+    webTestClient.post().uri("/songs/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(List.of())
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void shouldGetCachedSongMetadata(@Server(service = SONG) MockServer songServiceServer) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 987_654L);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+
+    webTestClient.get().uri("/songs/{id}", 987_654L)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals("X-Gateway-Cache", "MISS");
+
+    webTestClient.get().uri("/songs/{id}", 987_654L)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals("X-Gateway-Cache", "HIT")
+        .expectBody()
+        .jsonPath("$.id").isEqualTo(songMetadata.get("id"))
+        .jsonPath("$.name").isEqualTo(songMetadata.get("name"));
+  }
+
+  @Test
+  void shouldNotCacheSongMetadataMarkedNoStore(@Server(service = SONG) MockServer songServiceServer) {
+    shouldNotCacheSongMetadata(songServiceServer, 543_210L, Map.of(HttpHeaders.CACHE_CONTROL, "no-store"));
+  }
+
+  @Test
+  void shouldNotCacheSongMetadataVaryingByRequestHeaders(@Server(service = SONG) MockServer songServiceServer) {
+    shouldNotCacheSongMetadata(songServiceServer, 543_211L, Map.of(HttpHeaders.VARY, HttpHeaders.ACCEPT_LANGUAGE));
+  }
+
+  @Test
+  void shouldNotCacheSongMetadataAboveMaxEntrySize(@Server(service = SONG) MockServer songServiceServer) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 543_212L);
+    songMetadata.put("name", "x".repeat((int) songServiceProperties.getCache().getMaxEntrySize().toBytes()));
+    Map<String, String> headers = Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata, headers);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata, headers);
+
+    for (int i = 0; i < 2; i++) {
+      webTestClient.get().uri("/songs/{id}", 543_212L)
+          .accept(MediaType.APPLICATION_JSON)
+          .exchange()
+          .expectStatus().isOk()
+          .expectHeader().doesNotExist("X-Gateway-Cache")
+          .expectBody()
+          .jsonPath("$.id").isEqualTo(543_212L);
+    }
+
+    assertThat(songServiceServer.getRequestCount(), is(2));
+  }
+
+  private void shouldNotCacheSongMetadata(MockServer songServiceServer, long id, Map<String, String> cacheHeaders) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", id);
+    Map<String, String> headers = new HashMap<>(cacheHeaders);
+    headers.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata, headers);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata, headers);
+
+    for (int i = 0; i < 2; i++) {
+      webTestClient.get().uri("/songs/{id}", id)
+          .accept(MediaType.APPLICATION_JSON)
+          .exchange()
+          .expectStatus().isOk()
+          .expectHeader().doesNotExist("X-Gateway-Cache")
+          .expectBody()
+          .jsonPath("$.id").isEqualTo(id);
+    }
+
+    assertThat(songServiceServer.getRequestCount(), is(2));
+  }
+
+  @Test
+  void shouldCoalesceConcurrentSongMetadataLookups(@Server(service = SONG) MockServer songServiceServer) {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 876_543L);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE), Duration.ofMillis(500));
+
+    List<EntityExchangeResult<byte[]>> results = Flux.range(0, 2)
+        .flatMap(request -> Mono.fromCallable(() -> webTestClient.get().uri("/songs/{id}", 876_543L)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(songMetadata.get("id"))
+                .returnResult())
+            .subscribeOn(Schedulers.boundedElastic()))
+        .collectList()
+        .block();
+
+    assertThat(results.stream()
+        .filter(result -> "true".equals(result.getResponseHeaders().getFirst("X-Gateway-Coalesced")))
+        .count(), is(1L));
+    assertThat(songServiceServer.getRequestCount(), is(1));
+  }
+
+  @Test
+  void shouldApplyHttpClientCustomizersToServiceClients(@Server(service = SONG) MockServer songServiceServer)
+      throws InterruptedException {
+    Map<String, Object> songMetadata = buildSongMetadata();
+    songMetadata.put("id", 654_321L);
+    songServiceServer.responseWithJson(HttpStatus.OK, songMetadata,
+        Collections.singletonMap(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+
+    webTestClient.get().uri("/songs/{id}", 654_321L)
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk();
+
+    assertThat(songServiceServer.takeRequest().getHeader(GatewayConfiguration.CUSTOMIZED_HEADER), is("true"));
+  }
+
   private Map<String, Object> buildInvalidSongMetadata() {
     return Map.of(
         "resourceId", -123L,
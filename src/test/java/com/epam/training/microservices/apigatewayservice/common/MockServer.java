@@ -4,9 +4,14 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import okio.Buffer;
 import org.springframework.http.HttpStatus;
 
@@ -37,6 +42,18 @@ public final class MockServer {
     server.enqueue(response);
   }
 
+  /**
+   * Enqueues a response whose headers are sent after the given latency.
+   */
+  public <T> void responseWithJson(HttpStatus status, T responseBody, Map<String, String> headers, Duration latency) {
+    MockResponse response = new MockResponse();
+    response.setResponseCode(status.value());
+    response.setBody(toJson(responseBody));
+    headers.forEach(response::addHeader);
+    response.setHeadersDelay(latency.toNanos(), TimeUnit.NANOSECONDS);
+    server.enqueue(response);
+  }
+
   public void responseWithBuffer(HttpStatus status, Buffer responseBody, Map<String, String> headers) {
     MockResponse response = new MockResponse();
     response.setResponseCode(status.value());
@@ -51,6 +68,44 @@ public final class MockServer {
     server.enqueue(response);
   }
 
+  /**
+   * Enqueues a response that closes the connection once the request is read, before anything of the response is sent.
+   */
+  public void disconnectAfterRequest() {
+    MockResponse response = new MockResponse();
+    response.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+    server.enqueue(response);
+  }
+
+  /**
+   * Answers every request with the same response, delayed by the given latency, instead of the enqueued ones.
+   */
+  public void responseToEveryRequest(HttpStatus status, Buffer responseBody, Map<String, String> headers, Duration latency) {
+    MockResponse response = new MockResponse();
+    response.setResponseCode(status.value());
+    response.setBody(responseBody);
+    headers.forEach(response::addHeader);
+    response.setHeadersDelay(latency.toNanos(), TimeUnit.NANOSECONDS);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return response.clone();
+      }
+    });
+  }
+
+  public int getRequestCount() {
+    return server.getRequestCount();
+  }
+
+  public RecordedRequest takeRequest() throws InterruptedException {
+    return server.takeRequest(5, TimeUnit.SECONDS);
+  }
+
+  public <T> Buffer toJsonBuffer(T value) {
+    return new Buffer().writeUtf8(toJson(value));
+  }
+
   private <T> String toJson(T value) {
     try {
       return mapper.writeValueAsString(value);
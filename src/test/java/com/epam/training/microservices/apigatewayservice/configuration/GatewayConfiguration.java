@@ -3,6 +3,7 @@ package com.epam.training.microservices.apigatewayservice.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -12,6 +13,8 @@ import reactor.core.publisher.Mono;
 @EnableConfigurationProperties(value = {ResourceServiceProperties.class, SongServiceProperties.class, StorageServiceProperties.class,
     RateLimiterProperties.class})
 public class GatewayConfiguration {
+  public static final String CUSTOMIZED_HEADER = "X-Gateway-Client-Customized";
+
   @Value("${song.service.uri}")
   private String baseUrl;
 
@@ -20,6 +23,11 @@ public class GatewayConfiguration {
     return exchange -> Mono.just("1");
   }
 
+  @Bean
+  HttpClientCustomizer headerHttpClientCustomizer() {
+    return httpClient -> httpClient.headers(headers -> headers.add(CUSTOMIZED_HEADER, "true"));
+  }
+
   @Bean
   public WebClient webClient() {
     return WebClient.builder()
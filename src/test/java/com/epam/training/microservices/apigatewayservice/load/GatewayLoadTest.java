@@ -0,0 +1,189 @@
+package com.epam.training.microservices.apigatewayservice.load;
+
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.RESOURCE;
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.SONG;
+import static com.epam.training.microservices.apigatewayservice.common.Server.Service.STORAGE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+import com.epam.training.microservices.apigatewayservice.common.MockServer;
+import com.epam.training.microservices.apigatewayservice.common.MockServerExtension;
+import com.epam.training.microservices.apigatewayservice.common.Server;
+import com.epam.training.microservices.apigatewayservice.configuration.GatewayConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpMethod;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import okio.Buffer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Drives the running gateway with a closed-loop request mix against the mock backends of {@link MockServerExtension}, which
+ * answer every request after a configurable latency. Reports throughput and latency percentiles per route id as JSON, see
+ * {@link LoadTestSettings} for the knobs. Every lookup asks for another id, so that the figures measure proxying rather than
+ * the response cache or the coalescing of identical requests. Excluded from the regular test run, started with
+ * {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+@ExtendWith(MockServerExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(classes = GatewayConfiguration.class)
+@TestPropertySource(locations = "classpath:application.properties", properties = {
+    "rate-limiter.replenishRate=1000000",
+    "rate-limiter.burstCapacity=1000000",
+    "song.service.cache.enabled=false",
+    "storage.service.cache.enabled=false",
+    "logging.level.reactor.netty=INFO",
+    "logging.level.org.springframework.cloud.gateway=INFO"
+})
+class GatewayLoadTest {
+  private static final Logger log = LoggerFactory.getLogger(GatewayLoadTest.class);
+  private static final Map<String, String> JSON_HEADERS = Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+  private static final Map<String, LoadRequest> REQUESTS = Map.of(
+      "get-resource-by-id", new LoadRequest("GET", "/resources/{id}", null),
+      "get-song-by-id", new LoadRequest("GET", "/songs/{id}", null),
+      "get-storage-by-id", new LoadRequest("GET", "/storages/{id}", null),
+      "post-song", new LoadRequest("POST", "/songs",
+          "{\"resourceId\":1,\"name\":\"Hello World\",\"length\":\"12:45\",\"album\":\"Tech\",\"artist\":\"artist\",\"year\":2009}"));
+
+  @LocalServerPort
+  private int port;
+
+  @Test
+  void shouldReportGatewayThroughputAndLatency(@Server(service = RESOURCE) MockServer resourceServiceServer,
+      @Server(service = SONG) MockServer songServiceServer, @Server(service = STORAGE) MockServer storageServiceServer)
+      throws IOException {
+    LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+    byte[] resource = new byte[settings.resourceSize()];
+    new Random(42).nextBytes(resource);
+    resourceServiceServer.responseToEveryRequest(HttpStatus.OK, new Buffer().write(resource),
+        Map.of(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE), settings.backendLatency());
+    songServiceServer.responseToEveryRequest(HttpStatus.OK, songServiceServer.toJsonBuffer(Map.of("id", 1, "resourceId", 1)),
+        JSON_HEADERS, settings.backendLatency());
+    storageServiceServer.responseToEveryRequest(HttpStatus.OK,
+        storageServiceServer.toJsonBuffer(Map.of("id", 1, "type", "PERMANENT", "bucket", "permanent")),
+        JSON_HEADERS, settings.backendLatency());
+
+    ConnectionProvider connectionProvider = ConnectionProvider.builder("gateway-load-test")
+        .maxConnections(settings.concurrency())
+        .pendingAcquireMaxCount(-1)
+        .build();
+    try {
+      HttpClient client = HttpClient.create(connectionProvider).baseUrl("http://localhost:" + port);
+      List<String> routeIds = weightedRouteIds(settings.mix());
+
+      log.info("Warming up for {} with {} concurrent clients", settings.warmup(), settings.concurrency());
+      run(client, routeIds, settings, settings.warmup().toNanos());
+
+      log.info("Measuring for {} with {} concurrent clients", settings.duration(), settings.concurrency());
+      long startTime = System.nanoTime();
+      Map<String, RouteStats> stats = run(client, routeIds, settings, settings.duration().toNanos());
+      double seconds = (System.nanoTime() - startTime) / 1_000_000_000.0;
+
+      Map<String, Object> report = report(settings, stats, seconds);
+      Files.createDirectories(settings.report().toAbsolutePath().getParent());
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.report().toFile(), report);
+      log.info("Load test report written to {}: {}", settings.report().toAbsolutePath(), report.get("total"));
+
+      assertThat(RouteStats.merge(stats.values()).requests(), greaterThan(0L));
+    } finally {
+      connectionProvider.dispose();
+    }
+  }
+
+  private Map<String, RouteStats> run(HttpClient client, List<String> routeIds, LoadTestSettings settings, long durationNanos) {
+    Map<String, RouteStats> stats = new LinkedHashMap<>();
+    settings.mix().keySet().forEach(routeId -> stats.put(routeId, new RouteStats()));
+    long deadline = System.nanoTime() + durationNanos;
+    Flux.range(0, settings.concurrency())
+        .flatMap(worker -> Mono.defer(() -> send(client, routeIds, stats))
+            .repeat(() -> System.nanoTime() < deadline), settings.concurrency())
+        .blockLast();
+    return stats;
+  }
+
+  private Mono<Integer> send(HttpClient client, List<String> routeIds, Map<String, RouteStats> stats) {
+    String routeId = routeIds.get(ThreadLocalRandom.current().nextInt(routeIds.size()));
+    LoadRequest request = REQUESTS.get(routeId);
+    RouteStats routeStats = stats.get(routeId);
+    Publisher<ByteBuf> body = request.body() == null ? Mono.empty() : ByteBufFlux.fromString(Mono.just(request.body()));
+    long startTime = System.nanoTime();
+    return client
+        .headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+        .request(HttpMethod.valueOf(request.method()))
+        .uri(request.nextUri())
+        .send(body)
+        .responseSingle((response, content) -> content.asByteArray()
+            .then(Mono.just(response.status().code())))
+        .doOnNext(status -> routeStats.record(System.nanoTime() - startTime, status))
+        .onErrorResume(error -> {
+          routeStats.recordFailure(System.nanoTime() - startTime);
+          return Mono.empty();
+        });
+  }
+
+  private static List<String> weightedRouteIds(Map<String, Integer> mix) {
+    List<String> routeIds = new ArrayList<>();
+    mix.forEach((routeId, weight) -> {
+      if (!REQUESTS.containsKey(routeId)) {
+        throw new IllegalArgumentException("No load request defined for route " + routeId + ", known routes: " + REQUESTS.keySet());
+      }
+      for (int i = 0; i < weight; i++) {
+        routeIds.add(routeId);
+      }
+    });
+    return routeIds;
+  }
+
+  private static Map<String, Object> report(LoadTestSettings settings, Map<String, RouteStats> stats, double seconds) {
+    Map<String, Object> routes = new LinkedHashMap<>();
+    stats.forEach((routeId, routeStats) -> routes.put(routeId, routeStats.toReport(seconds)));
+    Map<String, Object> configuration = new LinkedHashMap<>();
+    configuration.put("concurrency", settings.concurrency());
+    configuration.put("warmup", settings.warmup().toString());
+    configuration.put("duration", settings.duration().toString());
+    configuration.put("backendLatency", settings.backendLatency().toString());
+    configuration.put("resourceSize", settings.resourceSize());
+    configuration.put("mix", settings.mix());
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("timestamp", Instant.now().toString());
+    report.put("configuration", configuration);
+    report.put("seconds", seconds);
+    report.put("total", RouteStats.merge(stats.values()).toReport(seconds));
+    report.put("routes", routes);
+    return report;
+  }
+
+  private record LoadRequest(String method, String uri, String body) {
+
+    String nextUri() {
+      return uri.replace("{id}", Long.toString(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE)));
+    }
+  }
+}
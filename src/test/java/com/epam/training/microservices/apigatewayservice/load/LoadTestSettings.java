@@ -0,0 +1,36 @@
+package com.epam.training.microservices.apigatewayservice.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, read from the {@code load.*} system properties that the loadTest Gradle task passes through.
+ */
+record LoadTestSettings(int concurrency, Duration warmup, Duration duration, Duration backendLatency, int resourceSize,
+                        Map<String, Integer> mix, Path report) {
+
+  static LoadTestSettings fromSystemProperties() {
+    return new LoadTestSettings(
+        Integer.getInteger("load.concurrency", 64),
+        Duration.parse(System.getProperty("load.warmup", "PT5S")),
+        Duration.parse(System.getProperty("load.duration", "PT30S")),
+        Duration.parse(System.getProperty("load.backend-latency", "PT0.005S")),
+        Integer.getInteger("load.resource-size", 16 * 1024),
+        parseMix(System.getProperty("load.mix", "get-song-by-id:40,get-resource-by-id:20,get-storage-by-id:30,post-song:10")),
+        Path.of(System.getProperty("load.report", "build/reports/load-test/gateway-load.json")));
+  }
+
+  /**
+   * Parses a request mix like {@code get-song-by-id:40,post-song:10} into route id and relative weight.
+   */
+  private static Map<String, Integer> parseMix(String mix) {
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String entry : mix.split(",")) {
+      String[] routeAndWeight = entry.trim().split(":");
+      weights.put(routeAndWeight[0], Integer.parseInt(routeAndWeight[1]));
+    }
+    return weights;
+  }
+}
@@ -0,0 +1,57 @@
+package com.epam.training.microservices.apigatewayservice.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies and errors of the requests sent to one gateway route.
+ */
+class RouteStats {
+  private static final long HIGHEST_TRACKABLE_LATENCY = TimeUnit.MINUTES.toNanos(1);
+  private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY, 3);
+  private final LongAdder errors = new LongAdder();
+
+  void record(long latencyNanos, int status) {
+    latencies.recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_LATENCY));
+    if (status >= 400) {
+      errors.increment();
+    }
+  }
+
+  void recordFailure(long latencyNanos) {
+    record(latencyNanos, 599);
+  }
+
+  long requests() {
+    return latencies.getTotalCount();
+  }
+
+  Map<String, Object> toReport(double seconds) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("requests", requests());
+    report.put("errors", errors.sum());
+    report.put("throughput", requests() / seconds);
+    report.put("p50", millis(latencies.getValueAtPercentile(50)));
+    report.put("p99", millis(latencies.getValueAtPercentile(99)));
+    report.put("p999", millis(latencies.getValueAtPercentile(99.9)));
+    report.put("max", millis(latencies.getMaxValue()));
+    return report;
+  }
+
+  static RouteStats merge(Iterable<RouteStats> stats) {
+    RouteStats total = new RouteStats();
+    for (RouteStats routeStats : stats) {
+      total.latencies.add(routeStats.latencies);
+      total.errors.add(routeStats.errors.sum());
+    }
+    return total;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
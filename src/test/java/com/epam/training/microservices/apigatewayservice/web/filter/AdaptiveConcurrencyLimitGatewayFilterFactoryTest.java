@@ -0,0 +1,74 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.SongServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+class AdaptiveConcurrencyLimitGatewayFilterFactoryTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldReleaseLimitWhenResponseHeadersAreCommitted() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+    Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+    GatewayFilterChain chain = attempt -> {
+      attempt.getResponse().setStatusCode(HttpStatus.OK);
+      return attempt.getResponse().writeWith(body.asFlux());
+    };
+
+    Disposable response = filter().filter(exchange, chain).subscribe();
+    assertThat(inFlight(), is(1.0));
+    body.tryEmitNext(buffer(exchange, "first chunk"));
+
+    // the body is still streaming, the response time was sampled at the commit of the headers
+    assertThat(exchange.getResponse().isCommitted(), is(true));
+    assertThat(response.isDisposed(), is(false));
+    assertThat(inFlight(), is(0.0));
+
+    body.tryEmitComplete();
+    assertThat(response.isDisposed(), is(true));
+    assertThat(inFlight(), is(0.0));
+  }
+
+  @Test
+  void shouldCountOverloadedResponseAsDropped() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+    GatewayFilterChain chain = attempt -> {
+      attempt.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      return attempt.getResponse().setComplete();
+    };
+
+    filter().filter(exchange, chain).block(Duration.ofSeconds(5));
+
+    assertThat(inFlight(), is(0.0));
+    assertThat(meterRegistry.get("gateway.concurrency-limit.limit").gauge().value(), is(18.0));
+  }
+
+  private static DataBuffer buffer(MockServerWebExchange exchange, String value) {
+    return exchange.getResponse().bufferFactory().wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private double inFlight() {
+    return meterRegistry.get("gateway.concurrency-limit.in-flight").gauge().value();
+  }
+
+  private GatewayFilter filter() {
+    SongServiceProperties service = new SongServiceProperties();
+    service.setName("SONG-SERVICE");
+    return new AdaptiveConcurrencyLimitGatewayFilterFactory(meterRegistry)
+        .apply(new AdaptiveConcurrencyLimitGatewayFilterFactory.Config(service));
+  }
+}
@@ -0,0 +1,84 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.epam.training.microservices.apigatewayservice.configuration.HedgingProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.RequestBudgetProperties;
+import com.epam.training.microservices.apigatewayservice.web.ratelimit.RequestBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class HedgingGatewayFilterFactoryTest {
+  private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+  @Test
+  void shouldAnswerWithHedgeWhenPrimaryIsSlow() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+    List<ServerWebExchange> attempts = new CopyOnWriteArrayList<>();
+    GatewayFilterChain chain = attempt -> {
+      attempts.add(attempt);
+      return attempts.size() == 1
+          ? Mono.delay(Duration.ofSeconds(2)).then(write(attempt, "primary"))
+          : write(attempt, "hedge");
+    };
+
+    filter().filter(exchange, chain).block(Duration.ofSeconds(5));
+
+    assertThat(attempts.size(), is(2));
+    assertThat(exchange.getResponse().getBodyAsString().block(), is("hedge"));
+    assertThat(exchange.getResponse().getHeaders().getFirst(HedgingGatewayFilterFactory.HEDGED_HEADER), is("true"));
+    assertThat(attempts.get(0).getResponse().isCommitted(), is(false));
+    assertThat(attempts.get(1).getResponse().isCommitted(), is(true));
+  }
+
+  @Test
+  void shouldAnswerWithPrimaryWhenItIsFast() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+    List<ServerWebExchange> attempts = new CopyOnWriteArrayList<>();
+    GatewayFilterChain chain = attempt -> {
+      attempts.add(attempt);
+      return write(attempt, attempts.size() == 1 ? "primary" : "hedge");
+    };
+
+    filter().filter(exchange, chain).block(Duration.ofSeconds(5));
+
+    assertThat(attempts.size(), is(1));
+    assertThat(exchange.getResponse().getBodyAsString().block(), is("primary"));
+    assertThat(exchange.getResponse().getHeaders().getFirst(HedgingGatewayFilterFactory.HEDGED_HEADER), is(nullValue()));
+    assertThat(attempts.get(0).getResponse().isCommitted(), is(true));
+  }
+
+  private static Mono<Void> write(ServerWebExchange attempt, String body) {
+    return Mono.defer(() -> {
+      attempt.getResponse().setStatusCode(HttpStatus.OK);
+      return attempt.getResponse().writeWith(Mono.fromSupplier(() ->
+          attempt.getResponse().bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    });
+  }
+
+  private static GatewayFilter filter() {
+    HedgingProperties properties = new HedgingProperties();
+    properties.setMinSamples(0);
+    properties.setMinDelay(HEDGE_DELAY);
+    properties.setMaxDelay(HEDGE_DELAY);
+    RequestBudgetProperties budgetProperties = new RequestBudgetProperties();
+    budgetProperties.setRatio(1);
+    budgetProperties.setMaxBalance(10);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    return new HedgingGatewayFilterFactory(properties, new RequestBudget(budgetProperties, meterRegistry), meterRegistry)
+        .apply(new HedgingGatewayFilterFactory.Config("get-song-by-id"));
+  }
+}
@@ -0,0 +1,51 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.junit.jupiter.api.Test;
+
+class LongKeyedIndexTest {
+
+  @Test
+  void shouldKeepIdsBeyondIntegerRangeApart() {
+    LongKeyedIndex<String> index = new LongKeyedIndex<>(4);
+    long id = 1L << 32;
+
+    index.putIfAbsent(id, "high");
+    index.putIfAbsent(0L, "zero");
+    index.putIfAbsent(Long.MAX_VALUE, "max");
+    index.putIfAbsent(-1L, "negative");
+
+    assertThat(index.get(id), is("high"));
+    assertThat(index.get(0L), is("zero"));
+    assertThat(index.get(Long.MAX_VALUE), is("max"));
+    assertThat(index.get(-1L), is("negative"));
+    assertThat(index.get(1L), is(nullValue()));
+  }
+
+  @Test
+  void shouldKeepFirstValueForDuplicateKey() {
+    LongKeyedIndex<String> index = new LongKeyedIndex<>(1);
+
+    assertThat(index.putIfAbsent(7L, "first"), is(true));
+    assertThat(index.putIfAbsent(7L, "second"), is(false));
+
+    assertThat(index.get(7L), is("first"));
+    assertThat(index.size(), is(1));
+  }
+
+  @Test
+  void shouldGrowBeyondExpectedSize() {
+    LongKeyedIndex<Long> index = new LongKeyedIndex<>(0);
+    for (long id = 0; id < 10_000; id++) {
+      index.putIfAbsent(id * 31, id);
+    }
+
+    assertThat(index.size(), is(10_000));
+    for (long id = 0; id < 10_000; id++) {
+      assertThat(index.get(id * 31), is(id));
+    }
+  }
+}
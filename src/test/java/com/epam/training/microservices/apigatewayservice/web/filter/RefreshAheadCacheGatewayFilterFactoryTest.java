@@ -0,0 +1,117 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RefreshAheadCacheProperties;
+import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RefreshAheadCacheGatewayFilterFactoryTest {
+  private static final String PATH = "/storages?type=STAGING";
+  private final AtomicLong nanos = new AtomicLong();
+  private final AtomicInteger upstreamRequests = new AtomicInteger();
+  private final List<URI> refreshes = new CopyOnWriteArrayList<>();
+  private final AtomicReference<HttpStatus> refreshStatus = new AtomicReference<>(HttpStatus.OK);
+  private final Sinks.Empty<Void> upstreamAnswers = Sinks.empty();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private GatewayFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    WebClient webClient = WebClient.builder()
+        .exchangeFunction(request -> {
+          refreshes.add(request.url());
+          return upstreamAnswers.asMono().then(Mono.fromSupplier(() -> ClientResponse.create(refreshStatus.get())
+              .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+              .body("refreshed")
+              .build()));
+        })
+        .build();
+    RefreshAheadCacheProperties properties = new RefreshAheadCacheProperties();
+    properties.setEnabled(true);
+    properties.setRefreshAfter(Duration.ofMinutes(1));
+    properties.setExpireAfter(Duration.ofHours(1));
+    StorageServiceProperties service = new StorageServiceProperties();
+    service.setUri("lb://STORAGE-SERVICE");
+    service.setPath("/api/v1/storages");
+    filter = new RefreshAheadCacheGatewayFilterFactory(webClient, meterRegistry)
+        .apply(new RefreshAheadCacheGatewayFilterFactory.Config("storages-by-type", properties, service), nanos::get);
+  }
+
+  @Test
+  void shouldServeStaleResponseWhileRefreshing() {
+    assertThat(get(), is("fetched"));
+    assertThat(get(), is("fetched"));
+    assertThat(refreshes.size(), is(0));
+
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+
+    assertThat(get(), is("fetched"));
+    assertThat(get(), is("fetched"));
+    assertThat(refreshes, is(List.of(URI.create("http://STORAGE-SERVICE/api/v1/storages?type=STAGING"))));
+
+    upstreamAnswers.tryEmitEmpty();
+
+    assertThat(get(), is("refreshed"));
+    assertThat(upstreamRequests.get(), is(1));
+    assertThat(refreshCount("success"), is(1.0));
+  }
+
+  @Test
+  void shouldKeepResponseWhenRefreshFails() {
+    refreshStatus.set(HttpStatus.SERVICE_UNAVAILABLE);
+    upstreamAnswers.tryEmitEmpty();
+    assertThat(get(), is("fetched"));
+
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+
+    assertThat(get(), is("fetched"));
+    assertThat(refreshCount("failure"), is(1.0));
+    assertThat(get(), is("fetched"));
+    assertThat(upstreamRequests.get(), is(1));
+
+    nanos.addAndGet(Duration.ofHours(1).toNanos());
+
+    assertThat(get(), is("fetched"));
+    assertThat(upstreamRequests.get(), is(2));
+  }
+
+  private String get() {
+    MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(PATH));
+    GatewayFilterChain chain = routed -> {
+      upstreamRequests.incrementAndGet();
+      byte[] body = "fetched".getBytes(StandardCharsets.UTF_8);
+      routed.getResponse().setStatusCode(HttpStatus.OK);
+      routed.getResponse().getHeaders().setContentLength(body.length);
+      return routed.getResponse().writeWith(Mono.fromSupplier(() -> routed.getResponse().bufferFactory().wrap(body)));
+    };
+    filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+    return exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5));
+  }
+
+  private double refreshCount(String outcome) {
+    return meterRegistry.get("gateway.refresh-ahead.refreshes").tag("outcome", outcome).counter().count();
+  }
+}
@@ -0,0 +1,63 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RequestMonitorProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+class RequestMonitorWebFilterTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RequestMonitorWebFilter filter = new RequestMonitorWebFilter(meterRegistry, new RequestMonitorProperties());
+
+  @Test
+  void shouldRecordLatencyByRouteMethodAndStatusClass() {
+    handle(MockServerHttpRequest.get("/songs/1"), HttpStatus.OK);
+    handle(MockServerHttpRequest.get("/songs/2"), HttpStatus.OK);
+    handle(MockServerHttpRequest.get("/songs/3"), HttpStatus.NOT_FOUND);
+
+    assertThat(timer("GET", "2xx").count(), is(2L));
+    assertThat(timer("GET", "4xx").count(), is(1L));
+  }
+
+  @Test
+  void shouldTagNonStandardMethodsAsOther() {
+    handle(MockServerHttpRequest.method(HttpMethod.valueOf("PURGE"), URI.create("/songs/1")), HttpStatus.METHOD_NOT_ALLOWED);
+    handle(MockServerHttpRequest.method(HttpMethod.valueOf("X-RANDOM-1"), URI.create("/songs/1")),
+        HttpStatus.METHOD_NOT_ALLOWED);
+
+    assertThat(timer("OTHER", "4xx").count(), is(2L));
+    assertThat(meterRegistry.get("gateway.route.latency").timers().size(), is(1));
+  }
+
+  private void handle(MockServerHttpRequest.BaseBuilder<?> request, HttpStatus status) {
+    MockServerWebExchange exchange = MockServerWebExchange.from(request);
+    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+        Route.async().id("get-song-by-id").uri("http://localhost").predicate(ignored -> true).build());
+    WebFilterChain chain = handled -> {
+      handled.getResponse().setStatusCode(status);
+      return Mono.empty();
+    };
+    filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+  }
+
+  private Timer timer(String method, String statusClass) {
+    return meterRegistry.get("gateway.route.latency")
+        .tag("routeId", "get-song-by-id")
+        .tag("method", method)
+        .tag("status", statusClass)
+        .timer();
+  }
+}
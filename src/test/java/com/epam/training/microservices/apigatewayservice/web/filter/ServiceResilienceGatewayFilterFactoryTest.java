@@ -0,0 +1,108 @@
+package com.epam.training.microservices.apigatewayservice.web.filter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.StorageServiceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ErrorProperties;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.boot.autoconfigure.web.reactive.error.DefaultErrorWebExceptionHandler;
+import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ServiceResilienceGatewayFilterFactoryTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger upstreamRequests = new AtomicInteger();
+
+  @Test
+  void shouldRecordServerErrorsAsFailuresAndRejectWhileCircuitIsOpen() {
+    HttpHandler httpHandler = httpHandler(filter(service()), exchange -> {
+      upstreamRequests.incrementAndGet();
+      exchange.getResponse().setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+      return exchange.getResponse().setComplete();
+    });
+    for (int i = 0; i < 4; i++) {
+      assertThat(get(httpHandler).getStatusCode(), is(HttpStatus.INTERNAL_SERVER_ERROR));
+    }
+    assertThat(meterRegistry.get("resilience4j.circuitbreaker.calls").tag("kind", "failed").timer().count(), is(4L));
+
+    MockServerHttpResponse response = get(httpHandler);
+
+    assertThat(response.getStatusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+    assertThat(response.getBodyAsString().block(), containsString("\"error\":\"Service Unavailable\""));
+    assertThat(upstreamRequests.get(), is(4));
+  }
+
+  @Test
+  void shouldRejectWhileBulkheadIsFull() {
+    StorageServiceProperties service = service();
+    service.getBulkhead().setMaxConcurrentCalls(1);
+    Sinks.Empty<Void> upstreamAnswers = Sinks.empty();
+    HttpHandler httpHandler = httpHandler(filter(service), exchange -> {
+      upstreamRequests.incrementAndGet();
+      exchange.getResponse().setStatusCode(HttpStatus.OK);
+      return upstreamAnswers.asMono().then(exchange.getResponse().setComplete());
+    });
+    MockServerHttpResponse inProgress = new MockServerHttpResponse();
+    httpHandler.handle(MockServerHttpRequest.get("/storages/1").build(), inProgress).subscribe();
+
+    MockServerHttpResponse response = get(httpHandler);
+
+    assertThat(response.getStatusCode(), is(HttpStatus.SERVICE_UNAVAILABLE));
+    assertThat(response.getBodyAsString().block(), containsString("\"status\":503"));
+    upstreamAnswers.tryEmitEmpty();
+    assertThat(inProgress.getStatusCode(), is(HttpStatus.OK));
+    assertThat(get(httpHandler).getStatusCode(), is(HttpStatus.OK));
+    assertThat(upstreamRequests.get(), is(2));
+  }
+
+  private static MockServerHttpResponse get(HttpHandler httpHandler) {
+    MockServerHttpResponse response = new MockServerHttpResponse();
+    httpHandler.handle(MockServerHttpRequest.get("/storages/1").build(), response).block(Duration.ofSeconds(5));
+    return response;
+  }
+
+  private static HttpHandler httpHandler(GatewayFilter filter, GatewayFilterChain chain) {
+    // renders the errors the way the gateway does
+    ServerCodecConfigurer codecs = ServerCodecConfigurer.create();
+    StaticApplicationContext applicationContext = new StaticApplicationContext();
+    applicationContext.refresh();
+    DefaultErrorWebExceptionHandler exceptionHandler = new DefaultErrorWebExceptionHandler(new DefaultErrorAttributes(),
+        new WebProperties.Resources(), new ErrorProperties(), applicationContext);
+    exceptionHandler.setMessageReaders(codecs.getReaders());
+    exceptionHandler.setMessageWriters(codecs.getWriters());
+    exceptionHandler.setViewResolvers(List.of());
+    return WebHttpHandlerBuilder.webHandler(exchange -> filter.filter(exchange, chain))
+        .exceptionHandler(exceptionHandler)
+        .build();
+  }
+
+  private static StorageServiceProperties service() {
+    StorageServiceProperties service = new StorageServiceProperties();
+    service.setName("STORAGE-SERVICE");
+    service.getCircuitBreaker().setSlidingWindowSize(4);
+    service.getCircuitBreaker().setMinimumNumberOfCalls(4);
+    return service;
+  }
+
+  private GatewayFilter filter(StorageServiceProperties service) {
+    return new ServiceResilienceGatewayFilterFactory(meterRegistry)
+        .apply(new ServiceResilienceGatewayFilterFactory.Config(service));
+  }
+}
@@ -0,0 +1,122 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.LoadBalancingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+class PeakEwmaLoadBalancerTest {
+  private static final String SERVICE = "SONG-SERVICE";
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void shouldSendMostRequestsToFasterInstance() {
+    PeakEwmaLoadBalancer loadBalancer = loadBalancer(instance("fast"), instance("slow"));
+    for (int i = 0; i < 100; i++) {
+      PeakEwmaLoadBalancer.TrackedResponse response = choose(loadBalancer);
+      clock.addAndGet(millis(host(response).equals("slow") ? 200 : 10));
+      response.complete(true);
+    }
+
+    int fast = 0;
+    for (int i = 0; i < 100; i++) {
+      PeakEwmaLoadBalancer.TrackedResponse response = choose(loadBalancer);
+      if (host(response).equals("fast")) {
+        fast++;
+      }
+      response.release();
+    }
+
+    assertThat(fast, greaterThan(70));
+  }
+
+  @Test
+  void shouldEjectInstanceFailingInARowUntilEjectionTimeIsOver() {
+    PeakEwmaLoadBalancer loadBalancer = loadBalancer(instance("a"), instance("b"), instance("c"));
+    int failures = 0;
+    while (failures < 5) {
+      PeakEwmaLoadBalancer.TrackedResponse response = choose(loadBalancer);
+      boolean failing = host(response).equals("a");
+      response.complete(!failing);
+      if (failing) {
+        failures++;
+      }
+    }
+
+    assertThat(chosenCount(loadBalancer, "a", 100), is(0));
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    assertThat(chosenCount(loadBalancer, "a", 100), greaterThan(0));
+  }
+
+  @Test
+  void shouldKeepSingleInstanceAlthoughItFails() {
+    PeakEwmaLoadBalancer loadBalancer = loadBalancer(instance("a"));
+    for (int i = 0; i < 10; i++) {
+      choose(loadBalancer).complete(false);
+    }
+
+    assertThat(chosenCount(loadBalancer, "a", 10), is(10));
+  }
+
+  private int chosenCount(PeakEwmaLoadBalancer loadBalancer, String host, int requests) {
+    int chosen = 0;
+    for (int i = 0; i < requests; i++) {
+      PeakEwmaLoadBalancer.TrackedResponse response = choose(loadBalancer);
+      if (host(response).equals(host)) {
+        chosen++;
+      }
+      response.release();
+    }
+    return chosen;
+  }
+
+  private PeakEwmaLoadBalancer loadBalancer(DefaultServiceInstance... instances) {
+    List<ServiceInstance> instanceList = List.of(instances);
+    ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+      @Override
+      public String getServiceId() {
+        return SERVICE;
+      }
+
+      @Override
+      public Flux<List<ServiceInstance>> get() {
+        return Flux.just(instanceList);
+      }
+    };
+    StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+    LoadBalancingProperties properties = new LoadBalancingProperties();
+    properties.setSlowStart(Duration.ZERO);
+    return new PeakEwmaLoadBalancer(beanFactory.getBeanProvider(ServiceInstanceListSupplier.class), SERVICE, properties,
+        new SimpleMeterRegistry(), clock::get);
+  }
+
+  private static PeakEwmaLoadBalancer.TrackedResponse choose(PeakEwmaLoadBalancer loadBalancer) {
+    return (PeakEwmaLoadBalancer.TrackedResponse) loadBalancer.choose(new DefaultRequest<>()).block();
+  }
+
+  private static String host(PeakEwmaLoadBalancer.TrackedResponse response) {
+    return response.getServer().getHost();
+  }
+
+  private static DefaultServiceInstance instance(String host) {
+    return new DefaultServiceInstance(host, SERVICE, host, 8080, false);
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -0,0 +1,78 @@
+package com.epam.training.microservices.apigatewayservice.web.loadbalancer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RegistrySnapshotProperties;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.core.env.StandardEnvironment;
+import reactor.core.publisher.Flux;
+
+class SnapshotServiceInstanceListSupplierTest {
+  private static final String SERVICE = "SONG-SERVICE";
+  private final AtomicReference<List<ServiceInstance>> registry = new AtomicReference<>(List.of());
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldServeSavedInstancesUntilRegistryReturnsInstances() {
+    RegistrySnapshot previousRun = registrySnapshot();
+    previousRun.start();
+    previousRun.update(SERVICE, List.of(instance("saved")));
+    previousRun.stop();
+
+    RegistrySnapshot registrySnapshot = registrySnapshot();
+    SnapshotServiceInstanceListSupplier supplier = new SnapshotServiceInstanceListSupplier(discovery(), registrySnapshot);
+
+    List<ServiceInstance> fromSnapshot = supplier.get().blockFirst();
+    assertThat(hosts(fromSnapshot), contains("saved"));
+    assertThat(RegistrySnapshot.isSnapshotInstance(fromSnapshot.get(0)), is(true));
+
+    registry.set(List.of(instance("discovered")));
+    assertThat(hosts(supplier.get().blockFirst()), contains("discovered"));
+    assertThat(hosts(registrySnapshot.instances(SERVICE)), contains("discovered"));
+
+    registry.set(List.of());
+    assertThat(supplier.get().blockFirst(), is(empty()));
+  }
+
+  private RegistrySnapshot registrySnapshot() {
+    RegistrySnapshotProperties properties = new RegistrySnapshotProperties();
+    properties.setDirectory(directory.toString());
+    return new RegistrySnapshot(properties, JsonMapper.builder().findAndAddModules().build(), new StandardEnvironment());
+  }
+
+  private ServiceInstanceListSupplier discovery() {
+    return new ServiceInstanceListSupplier() {
+      @Override
+      public String getServiceId() {
+        return SERVICE;
+      }
+
+      @Override
+      public Flux<List<ServiceInstance>> get() {
+        return Flux.just(registry.get());
+      }
+    };
+  }
+
+  private static ServiceInstance instance(String host) {
+    return new DefaultServiceInstance(host, SERVICE, host, 8080, false, Map.of());
+  }
+
+  private static List<String> hosts(List<ServiceInstance> instances) {
+    return instances.stream().map(ServiceInstance::getHost).toList();
+  }
+}
@@ -0,0 +1,89 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.epam.training.microservices.apigatewayservice.configuration.ConcurrencyLimitProperties;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+  private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @Test
+  void shouldRejectRequestsBeyondLimit() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties(10));
+    for (int i = 0; i < 10; i++) {
+      assertThat(limit.tryAcquire(), is(true));
+    }
+
+    assertThat(limit.tryAcquire(), is(false));
+    limit.onIgnored();
+    assertThat(limit.tryAcquire(), is(true));
+  }
+
+  @Test
+  void shouldGrowWhileSaturatedAndResponsesStayFast() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties(10));
+
+    saturate(limit, RTT, 20);
+
+    assertThat(limit.getLimit(), greaterThan(10));
+  }
+
+  @Test
+  void shouldShrinkWhenResponsesSlowDown() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties(50));
+    saturate(limit, RTT, 20);
+    int healthyLimit = limit.getLimit();
+
+    saturate(limit, RTT * 5, 1);
+
+    assertThat(limit.getLimit(), lessThan(healthyLimit));
+  }
+
+  @Test
+  void shouldBackOffOnDroppedRequests() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties(50));
+    for (int i = 0; i < 10; i++) {
+      limit.tryAcquire();
+      limit.onDropped();
+    }
+
+    assertThat(limit.getLimit(), lessThan(20));
+    assertThat(limit.getInFlight(), is(0));
+  }
+
+  @Test
+  void shouldNotGrowWhileMostOfLimitIsUnused() {
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(properties(10));
+    for (int i = 0; i < 100; i++) {
+      limit.tryAcquire();
+      limit.onSuccess(RTT);
+    }
+
+    assertThat(limit.getLimit(), is(10));
+  }
+
+  private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+    for (int round = 0; round < rounds; round++) {
+      int acquired = 0;
+      while (limit.tryAcquire()) {
+        acquired++;
+      }
+      for (int i = 0; i < acquired; i++) {
+        limit.onSuccess(rttNanos);
+      }
+    }
+  }
+
+  private static ConcurrencyLimitProperties properties(int initialLimit) {
+    ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+    properties.setInitialLimit(initialLimit);
+    properties.setMinLimit(1);
+    properties.setMaxLimit(1000);
+    return properties;
+  }
+}
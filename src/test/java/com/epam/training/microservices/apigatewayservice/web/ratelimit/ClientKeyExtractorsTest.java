@@ -0,0 +1,143 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class ClientKeyExtractorsTest {
+  private static final String API_KEY_HEADER = "X-API-Key";
+  private static final String FORWARDED_FOR = "X-Forwarded-For";
+  private static final InetSocketAddress PROXY = new InetSocketAddress("10.0.0.9", 41_000);
+
+  @Test
+  void shouldKeyByRemoteAddressWithoutTrustedProxies() {
+    ServerWebExchange exchange = exchange(request().header(FORWARDED_FOR, "203.0.113.7"));
+
+    assertThat(extract(ClientKeyExtractors.clientIp(0), exchange), is("ip:10.0.0.9"));
+  }
+
+  @Test
+  void shouldKeyByClientAppendedByTrustedProxy() {
+    // the client sent a made-up X-Forwarded-For of its own, the proxy appended the address it saw
+    ServerWebExchange exchange = exchange(request().header(FORWARDED_FOR, "198.51.100.1, 203.0.113.7"));
+
+    assertThat(extract(ClientKeyExtractors.clientIp(1), exchange), is("ip:203.0.113.7"));
+  }
+
+  @Test
+  void shouldIgnoreSpoofedHopsBeyondTrustedProxies() {
+    ServerWebExchange exchange = exchange(request().header(FORWARDED_FOR, "198.51.100.1, 198.51.100.2, 203.0.113.7, 10.0.0.5"));
+
+    assertThat(extract(ClientKeyExtractors.clientIp(2), exchange), is("ip:203.0.113.7"));
+  }
+
+  @Test
+  void shouldKeyByRemoteAddressWhenTrustedProxyForwardedNothing() {
+    assertThat(extract(ClientKeyExtractors.clientIp(1), exchange(request())), is("ip:10.0.0.9"));
+  }
+
+  @Test
+  void shouldKeyByApiKeyOfRequestAuthenticatedWithIt() {
+    ServerWebExchange exchange = exchange(request().header(API_KEY_HEADER, "key-1"),
+        UsernamePasswordAuthenticationToken.authenticated("client-1", "key-1", AuthorityUtils.NO_AUTHORITIES));
+
+    assertThat(extract(ClientKeyExtractors.apiKey(API_KEY_HEADER), exchange), is("api-key:key-1"));
+  }
+
+  @Test
+  void shouldIgnoreApiKeyOfUnauthenticatedRequest() {
+    ServerWebExchange exchange = exchange(request().header(API_KEY_HEADER, "made-up"));
+
+    assertThat(extract(ClientKeyExtractors.apiKey(API_KEY_HEADER), exchange), is(nullValue()));
+    assertThat(extract(ClientKeyExtractors.forProperties(properties(RateLimiterProperties.KeyStrategy.API_KEY)), exchange),
+        is("ip:10.0.0.9"));
+  }
+
+  @Test
+  void shouldIgnoreApiKeyOtherThanTheAuthenticatedOne() {
+    ServerWebExchange exchange = exchange(request().header(API_KEY_HEADER, "made-up"),
+        UsernamePasswordAuthenticationToken.authenticated("client-1", "key-1", AuthorityUtils.NO_AUTHORITIES));
+
+    assertThat(extract(ClientKeyExtractors.apiKey(API_KEY_HEADER), exchange), is(nullValue()));
+  }
+
+  @Test
+  void shouldIgnoreApiKeyOfNotAuthenticatedToken() {
+    ServerWebExchange exchange = exchange(request().header(API_KEY_HEADER, "key-1"),
+        UsernamePasswordAuthenticationToken.unauthenticated("client-1", "key-1"));
+
+    assertThat(extract(ClientKeyExtractors.apiKey(API_KEY_HEADER), exchange), is(nullValue()));
+  }
+
+  @Test
+  void shouldKeyByPrincipalName() {
+    ServerWebExchange exchange = exchange(request(),
+        UsernamePasswordAuthenticationToken.authenticated("alice", null, AuthorityUtils.NO_AUTHORITIES));
+
+    assertThat(extract(ClientKeyExtractors.principal(), exchange), is("principal:alice"));
+  }
+
+  @Test
+  void shouldKeyAnonymousPrincipalByClientIp() {
+    ServerWebExchange exchange = exchange(request(), new AnonymousAuthenticationToken("key", "anonymousUser",
+        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+
+    assertThat(extract(ClientKeyExtractors.principal(), exchange), is(nullValue()));
+    assertThat(extract(ClientKeyExtractors.forProperties(properties(RateLimiterProperties.KeyStrategy.PRINCIPAL)), exchange),
+        is("ip:10.0.0.9"));
+  }
+
+  @Test
+  void shouldKeyByRouteAndClient() {
+    ClientKeyExtractor extractor = ClientKeyExtractors.forProperties(properties(RateLimiterProperties.KeyStrategy.ROUTE_CLIENT));
+    ServerWebExchange authenticated = exchange(request(),
+        UsernamePasswordAuthenticationToken.authenticated("alice", null, AuthorityUtils.NO_AUTHORITIES));
+    authenticated.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+        .id("get-song-by-id")
+        .uri("http://localhost")
+        .predicate(exchange -> true)
+        .build());
+
+    assertThat(extract(extractor, authenticated), is("get-song-by-id:principal:alice"));
+    assertThat(extract(extractor, exchange(request())), is("none:ip:10.0.0.9"));
+  }
+
+  private static String extract(ClientKeyExtractor extractor, ServerWebExchange exchange) {
+    return extractor.extract(exchange).block();
+  }
+
+  private static RateLimiterProperties properties(RateLimiterProperties.KeyStrategy keyStrategy) {
+    RateLimiterProperties properties = new RateLimiterProperties();
+    properties.setKeyStrategy(keyStrategy);
+    return properties;
+  }
+
+  private static MockServerHttpRequest.BaseBuilder<?> request() {
+    return MockServerHttpRequest.get("/songs/1").remoteAddress(PROXY);
+  }
+
+  private static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+    return MockServerWebExchange.from(request);
+  }
+
+  private static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, Principal principal) {
+    return MockServerWebExchange.from(request).mutate()
+        .principal(Mono.just(principal))
+        .build();
+  }
+}
@@ -0,0 +1,55 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class ClientKeyResolverTest {
+
+  @Test
+  void shouldHashClientIdentityIntoFixedLengthKey() {
+    String key = resolve(new ClientKeyResolver(exchange -> Mono.just("api-key:secret")), exchange());
+
+    assertThat(key, matchesPattern("[0-9a-f]{1,16}"));
+    assertThat(key, is(ClientKeyResolver.hash("api-key:secret")));
+    assertThat(key, not(ClientKeyResolver.hash("api-key:secret2")));
+  }
+
+  @Test
+  void shouldExtractClientKeyOncePerExchange() {
+    AtomicInteger extractions = new AtomicInteger();
+    ClientKeyResolver resolver = new ClientKeyResolver(
+        exchange -> Mono.fromSupplier(() -> "ip:10.0.0." + extractions.incrementAndGet()));
+    ServerWebExchange exchange = exchange();
+
+    String key = resolve(resolver, exchange);
+
+    assertThat(resolve(resolver, exchange), is(key));
+    assertThat(exchange.getAttribute(ClientKeyResolver.CLIENT_KEY_ATTR), is(key));
+    assertThat(extractions.get(), is(1));
+    assertThat(resolve(resolver, exchange()), not(key));
+  }
+
+  @Test
+  void shouldShareAnonymousKeyWithoutClientIdentity() {
+    ClientKeyResolver resolver = new ClientKeyResolver(exchange -> Mono.empty());
+
+    assertThat(resolve(resolver, exchange()), is(ClientKeyResolver.hash("anonymous")));
+  }
+
+  private static String resolve(ClientKeyResolver resolver, ServerWebExchange exchange) {
+    return resolver.resolve(exchange).block();
+  }
+
+  private static ServerWebExchange exchange() {
+    return MockServerWebExchange.from(MockServerHttpRequest.get("/songs/1"));
+  }
+}
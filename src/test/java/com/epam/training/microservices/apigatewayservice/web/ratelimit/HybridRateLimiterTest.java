@@ -0,0 +1,122 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RateLimiterProperties;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+class HybridRateLimiterTest {
+  private static final String ROUTE = "get-song-by-id";
+  private static final String CLIENT = "10.0.0.1";
+  private final ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+  private final RateLimiterProperties properties = new RateLimiterProperties();
+  private HybridRateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() {
+    rateLimiter = new HybridRateLimiter(redisTemplate, mock(ConfigurationService.class), properties);
+    // nothing is refilled, a test sees only the tokens it consumed
+    rateLimiter.getConfig().put(ROUTE, new HybridRateLimiter.Config().setReplenishRate(0).setBurstCapacity(3));
+  }
+
+  @Test
+  void shouldRejectRequestsBeyondBurstWithRemainingTokens() {
+    assertThat(remaining(isAllowed(CLIENT)), is("2"));
+    assertThat(remaining(isAllowed(CLIENT)), is("1"));
+    assertThat(remaining(isAllowed(CLIENT)), is("0"));
+
+    RateLimiter.Response rejected = isAllowed(CLIENT);
+
+    assertThat(rejected.isAllowed(), is(false));
+    assertThat(remaining(rejected), is("0"));
+    assertThat(rejected.getHeaders().get(RedisRateLimiter.BURST_CAPACITY_HEADER), is("3"));
+    assertThat(rejected.getHeaders().get(RedisRateLimiter.REQUESTED_TOKENS_HEADER), is("1"));
+    assertThat(isAllowed("10.0.0.2").isAllowed(), is(true));
+  }
+
+  @Test
+  void shouldChargeRequestedTokens() {
+    RateLimiter.Response response = rateLimiter.isAllowed(ROUTE, CLIENT, 3).block();
+
+    assertThat(response.isAllowed(), is(true));
+    assertThat(remaining(response), is("0"));
+    assertThat(rateLimiter.isAllowed(ROUTE, CLIENT, 1).block().isAllowed(), is(false));
+  }
+
+  @Test
+  void shouldDrainTokensConsumedByOtherInstances() {
+    when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), anyList()))
+        .thenReturn(Flux.just(1L))
+        .thenReturn(Flux.just(3L));
+    isAllowed(CLIENT);
+    rateLimiter.synchronize().block();
+
+    // another instance took the remaining 2 tokens of the client
+    rateLimiter.synchronize().block();
+
+    assertThat(isAllowed(CLIENT).isAllowed(), is(false));
+  }
+
+  @Test
+  void shouldKeepConsumptionWhenRedisIsUnavailable() {
+    properties.setKeyIdleTimeout(Duration.ZERO);
+    when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), anyList()))
+        .thenReturn(Flux.error(new IllegalStateException("Redis is down")));
+    exhaust(CLIENT);
+
+    rateLimiter.synchronize().block();
+    rateLimiter.synchronize().block();
+
+    assertThat(isAllowed(CLIENT).isAllowed(), is(false));
+  }
+
+  @Test
+  void shouldEvictIdleBuckets() {
+    properties.setKeyIdleTimeout(Duration.ZERO);
+    when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), anyList()))
+        .thenReturn(Flux.just(3L));
+    exhaust(CLIENT);
+
+    rateLimiter.synchronize().block();
+    rateLimiter.synchronize().block();
+
+    assertThat(remaining(isAllowed(CLIENT)), is("2"));
+  }
+
+  @Test
+  void shouldShareOneBucketBeyondMaxKeys() {
+    properties.setMaxKeys(1);
+    isAllowed(CLIENT);
+    exhaust("10.0.0.2");
+
+    assertThat(isAllowed("10.0.0.3").isAllowed(), is(false));
+    assertThat(isAllowed(CLIENT).isAllowed(), is(true));
+  }
+
+  private void exhaust(String client) {
+    while (isAllowed(client).isAllowed()) {
+      // takes the next token
+    }
+  }
+
+  private RateLimiter.Response isAllowed(String client) {
+    return rateLimiter.isAllowed(ROUTE, client).block();
+  }
+
+  private static String remaining(RateLimiter.Response response) {
+    return response.getHeaders().get(RedisRateLimiter.REMAINING_HEADER);
+  }
+}
@@ -0,0 +1,55 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LocalTokenBucketTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  void shouldAllowBurstAndRejectBeyondIt() {
+    LocalTokenBucket bucket = new LocalTokenBucket(10, 20, 0);
+
+    assertThat(bucket.tryConsume(15, 0), is(5L));
+    assertThat(bucket.tryConsume(5, 0), is(0L));
+    assertThat(bucket.tryConsume(1, 0), is(-1L));
+  }
+
+  @Test
+  void shouldRefillAtReplenishRateUpToBurstCapacity() {
+    LocalTokenBucket bucket = new LocalTokenBucket(10, 20, 0);
+    bucket.tryConsume(20, 0);
+
+    assertThat(bucket.tryConsume(5, SECOND / 2), is(0L));
+    assertThat(bucket.tryConsume(1, SECOND / 2), is(-1L));
+    assertThat(bucket.tryConsume(1, 60 * SECOND), is(19L));
+  }
+
+  @Test
+  void shouldDrainTokensConsumedByOtherInstances() {
+    LocalTokenBucket bucket = new LocalTokenBucket(10, 20, 0);
+    bucket.tryConsume(2, 0);
+    bucket.applyClusterTotal(100, bucket.drainUnsyncedConsumption(), 0);
+    assertThat(bucket.tryConsume(0, 0), is(18L));
+
+    bucket.tryConsume(3, 0);
+    // 3 tokens of this instance and 5 of others since the last total
+    bucket.applyClusterTotal(108, bucket.drainUnsyncedConsumption(), 0);
+
+    assertThat(bucket.tryConsume(0, 0), is(10L));
+  }
+
+  @Test
+  void shouldBecomeIdleOnlyWhenConsumptionIsSynchronized() {
+    LocalTokenBucket bucket = new LocalTokenBucket(10, 20, 0);
+    bucket.tryConsume(1, 0);
+
+    assertThat(bucket.isIdle(2 * SECOND, SECOND), is(false));
+    bucket.drainUnsyncedConsumption();
+    assertThat(bucket.isIdle(SECOND / 2, SECOND), is(false));
+    assertThat(bucket.isIdle(2 * SECOND, SECOND), is(true));
+  }
+}
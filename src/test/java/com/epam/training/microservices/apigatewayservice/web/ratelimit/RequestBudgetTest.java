@@ -0,0 +1,44 @@
+package com.epam.training.microservices.apigatewayservice.web.ratelimit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RequestBudgetProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+class RequestBudgetTest {
+
+  @Test
+  void shouldAllowExtraRequestsUpToRatioOfDeposits() {
+    RequestBudget budget = budget(0.1, 50);
+
+    assertThat(budget.tryWithdraw(), is(false));
+    for (int i = 0; i < 20; i++) {
+      budget.deposit();
+    }
+
+    assertThat(budget.tryWithdraw(), is(true));
+    assertThat(budget.tryWithdraw(), is(true));
+    assertThat(budget.tryWithdraw(), is(false));
+  }
+
+  @Test
+  void shouldCapBalance() {
+    RequestBudget budget = budget(0.5, 2);
+    for (int i = 0; i < 100; i++) {
+      budget.deposit();
+    }
+
+    assertThat(budget.tryWithdraw(), is(true));
+    assertThat(budget.tryWithdraw(), is(true));
+    assertThat(budget.tryWithdraw(), is(false));
+  }
+
+  private static RequestBudget budget(double ratio, int maxBalance) {
+    RequestBudgetProperties properties = new RequestBudgetProperties();
+    properties.setRatio(ratio);
+    properties.setMaxBalance(maxBalance);
+    return new RequestBudget(properties, new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,55 @@
+package com.epam.training.microservices.apigatewayservice.web.router;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.epam.training.microservices.apigatewayservice.configuration.RouteProperties;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+class RouteDispatchIndexTest {
+  private final RouteDispatchIndex index = new RouteDispatchIndex(List.of(
+      route("get-song-by-id", HttpMethod.GET, "/songs/{id}"),
+      route("delete-songs", HttpMethod.DELETE, "/songs", "id"),
+      route("delete-songs-by-resource-id", HttpMethod.DELETE, "/songs/by-resource-id", "id"),
+      route("get-storages-by-type", HttpMethod.GET, "/storages", "type"),
+      route("get-storage-by-id", HttpMethod.GET, "/storages/{id}")));
+
+  @Test
+  void shouldDispatchByMethodPathAndQuery() {
+    assertThat(index.lookup(exchange(MockServerHttpRequest.delete("/songs?id=1,2"))), is("delete-songs"));
+    assertThat(index.lookup(exchange(MockServerHttpRequest.delete("/songs/by-resource-id?id=1"))), is("delete-songs-by-resource-id"));
+    assertThat(index.lookup(exchange(MockServerHttpRequest.get("/storages?type=STAGING"))), is("get-storages-by-type"));
+    assertThat(index.lookup(exchange(MockServerHttpRequest.get("/storages/"))), is(""));
+    assertThat(index.lookup(exchange(MockServerHttpRequest.delete("/songs"))), is(""));
+    assertThat(index.lookup(exchange(MockServerHttpRequest.post("/songs/1"))), is(""));
+  }
+
+  @Test
+  void shouldExposePathVariablesOfMatchedRoute() {
+    ServerWebExchange exchange = exchange(MockServerHttpRequest.get("/songs/42"));
+
+    assertThat(index.matches("get-song-by-id").test(exchange), is(true));
+    assertThat(index.matches("get-storage-by-id").test(exchange), is(false));
+    assertThat(ServerWebExchangeUtils.getUriTemplateVariables(exchange), is(Map.of("id", "42")));
+  }
+
+  private static ServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+    return MockServerWebExchange.from(request);
+  }
+
+  private static RouteProperties route(String id, HttpMethod method, String path, String... query) {
+    RouteProperties route = new RouteProperties();
+    route.setId(id);
+    route.setMethod(method);
+    route.setPath(path);
+    route.setQuery(List.of(query));
+    return route;
+  }
+}
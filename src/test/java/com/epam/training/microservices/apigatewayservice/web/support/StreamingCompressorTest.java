@@ -0,0 +1,77 @@
+package com.epam.training.microservices.apigatewayservice.web.support;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+class StreamingCompressorTest {
+  private static final String CHUNK = "{\"id\":1,\"name\":\"We Will Rock You\",\"artist\":\"Queen\",\"album\":\"News of the World\"},";
+  private final DataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+  @Test
+  void shouldGzipBodyChunkByChunk() throws IOException {
+    StreamingCompressor compressor = new StreamingCompressor(StreamingCompressor.Encoding.GZIP, Deflater.DEFAULT_COMPRESSION);
+
+    byte[] compressed = compress(compressor, 200);
+
+    assertThat(decode(new GZIPInputStream(new ByteArrayInputStream(compressed))), is(CHUNK.repeat(200)));
+    assertThat(compressor.getOutputBytes(), is((long) compressed.length));
+    assertThat(compressor.getOutputBytes(), lessThan(compressor.getInputBytes()));
+  }
+
+  @Test
+  void shouldDeflateBodyChunkByChunk() throws IOException {
+    StreamingCompressor compressor = new StreamingCompressor(StreamingCompressor.Encoding.DEFLATE, Deflater.DEFAULT_COMPRESSION);
+
+    byte[] compressed = compress(compressor, 200);
+
+    assertThat(decode(new InflaterInputStream(new ByteArrayInputStream(compressed))), is(CHUNK.repeat(200)));
+  }
+
+  @Test
+  void shouldGzipEmptyBody() throws IOException {
+    StreamingCompressor compressor = new StreamingCompressor(StreamingCompressor.Encoding.GZIP, Deflater.DEFAULT_COMPRESSION);
+
+    byte[] compressed = compress(compressor, 0);
+
+    assertThat(decode(new GZIPInputStream(new ByteArrayInputStream(compressed))), is(""));
+  }
+
+  private byte[] compress(StreamingCompressor compressor, int chunks) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      for (int i = 0; i < chunks; i++) {
+        append(output, compressor.compress(bufferFactory.wrap(CHUNK.getBytes(StandardCharsets.UTF_8)), bufferFactory));
+      }
+      append(output, compressor.finish(bufferFactory));
+    } finally {
+      compressor.end();
+    }
+    return output.toByteArray();
+  }
+
+  private static void append(ByteArrayOutputStream output, DataBuffer buffer) {
+    byte[] bytes = new byte[buffer.readableByteCount()];
+    buffer.read(bytes);
+    output.writeBytes(bytes);
+  }
+
+  private static String decode(InputStream input) throws IOException {
+    try (input) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}